@@ -0,0 +1,93 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *  // Objetivo //
+ *     Medir una petición completa a través de SSL en loopback: handshake, envío del JSON,
+ *     análisis en TCPserver/PatientHandler y lectura de la respuesta.
+ *  // Proceso //
+ *     1. Genera un paciente y un panel sintéticos en target/bench-data/e2e/.
+ *     2. Configura el keystore de demostración del servidor y arranca TCPserver en un
+ *        puerto libre en un hilo daemon del mismo proceso.
+ *     3. Cada invocación abre una conexión nueva, como hace TCPclient.sendMessage.
+ *  // Propiedades //
+ *     genomics.bench.keystore : Ruta del keystore PKCS12 (por defecto el del módulo servidor).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dgenomics.data=target/bench-data/e2e/")
+public class EndToEndBenchmark {
+
+    private static final String KEYSTORE = System.getProperty("genomics.bench.keystore",
+            "../genomics-ssl-server/src/main/resources/certs/demo_tcp.p12");
+
+    @Param({"10000", "1000000"})
+    public int genomeSize;
+
+    @Param({"4", "64"})
+    public int panelSize;
+
+    private int port;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        SyntheticData.write(SyntheticData.generate(genomeSize, panelSize), new File("target/bench-data/e2e"), "900");
+
+        System.setProperty("javax.net.ssl.keyStore", KEYSTORE);
+        System.setProperty("javax.net.ssl.keyStorePassword", "123456");
+        System.setProperty("javax.net.ssl.keyStoreType", "PKCS12");
+        System.setProperty("javax.net.ssl.trustStore", KEYSTORE);
+        System.setProperty("javax.net.ssl.trustStorePassword", "123456");
+        System.setProperty("javax.net.ssl.trustStoreType", "PKCS12");
+
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        Thread serverThread = new Thread(() -> new TCPserver(port).start(), "bench-tcpserver");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        waitForPort();
+
+        Patient patient = new Patient("900", "Paciente Sintetico", "CC900", "sintetico@example.com",
+                new Date(0), 42, "F", "data/adn-genomics/patient900.fasta", "d41d8cd98f00b204", genomeSize);
+        json = new Gson().toJson(patient);
+    }
+
+    private void waitForPort() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            try (Socket ignored = new Socket("127.0.0.1", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("TCPserver no arrancó en el puerto " + port);
+    }
+
+    @Benchmark
+    public String roundTrip() throws IOException {
+        try (Socket socket = SSLSocketFactory.getDefault().createSocket("127.0.0.1", port)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeUTF(json);
+            return in.readUTF();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.genomics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *  // Objetivo //
+ *     Medir la lectura de un archivo FASTA de paciente (PatientHandler.readFastaFile y
+ *     FastaReader, registro por registro) según el tamaño del genoma.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class FastaParsingBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int genomeSize;
+
+    private String patientFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File root = new File("target/bench-data/fasta-" + genomeSize);
+        SyntheticData.write(SyntheticData.generate(genomeSize, 1), root, "900");
+        patientFile = new File(root, "adn-genomics/patient900.fasta").getPath();
+    }
+
+    @Benchmark
+    public String readFastaFile() throws IOException {
+        return PatientHandler.readFastaFile(patientFile);
+    }
+
+    @Benchmark
+    public long readRecords() throws IOException {
+        long bases = 0;
+        try (FastaReader reader = new FastaReader(patientFile)) {
+            FastaRecord record;
+            while ((record = reader.next()) != null) {
+                bases += record.sequence().length;
+            }
+        }
+        return bases;
+    }
+}
@@ -0,0 +1,44 @@
+package com.genomics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *  // Objetivo //
+ *     Medir el ciclo de comparación de enfermedades de processPatient (PatientHandler.findMatches,
+ *     todas las posiciones en ambas hebras)
+ *     con el genoma y el panel ya cargados en memoria.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MatchingBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int genomeSize;
+
+    @Param({"4", "64"})
+    public int panelSize;
+
+    private byte[] genome;
+    private List<DiseasePanel.Matcher> panel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticData.Dataset dataset = SyntheticData.generate(genomeSize, panelSize);
+        genome = dataset.genome().getBytes(StandardCharsets.US_ASCII);
+        panel = DiseasePanel.of(dataset.panel()).matchers();
+    }
+
+    @Benchmark
+    public Map<String, MatchBuffer> findMatches() {
+        return PatientHandler.findMatches(genome, 0, 0, genome.length, panel, PatientHandler.MAX_POSITIONS);
+    }
+}
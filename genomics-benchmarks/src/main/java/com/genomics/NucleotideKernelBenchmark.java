@@ -0,0 +1,67 @@
+package com.genomics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *  // Objetivo //
+ *     Comparar ScalarKernel y VectorKernel en las dos operaciones de NucleotideKernel:
+ *     compactar un FASTA (líneas de 60 bases en minúsculas) y buscar todas las apariciones
+ *     de una firma en un genoma. Que ambos den el mismo resultado lo verifica NucleotideKernelCheck.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class NucleotideKernelBenchmark {
+
+    @Param({"escalar", "vectorial"})
+    public String kernel;
+
+    @Param({"1000000"})
+    public int genomeSize;
+
+    private NucleotideKernel impl;
+    private byte[] fasta;
+    private byte[] genome;
+    private byte[] signature;
+    private byte[] out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        impl = kernel.equals("vectorial") ? VectorKernel.create() : new ScalarKernel();
+
+        Random random = new Random(SyntheticData.SEED);
+        String sequence = SyntheticData.sequence(random, genomeSize);
+        genome = sequence.getBytes(StandardCharsets.US_ASCII);
+        signature = SyntheticData.sequence(random, SyntheticData.SIGNATURE_LENGTH).getBytes(StandardCharsets.US_ASCII);
+
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < sequence.length(); i += 60) {
+            lines.append(sequence.substring(i, Math.min(sequence.length(), i + 60)).toLowerCase()).append('\n');
+        }
+        fasta = lines.toString().getBytes(StandardCharsets.US_ASCII);
+        out = new byte[fasta.length];
+    }
+
+    @Benchmark
+    public int compact() {
+        return impl.compact(fasta, 0, fasta.length, out, 0);
+    }
+
+    @Benchmark
+    public int indexOfAll() {
+        int found = 0;
+        int pos = impl.indexOf(genome, signature, 0, genome.length);
+        while (pos >= 0) {
+            found++;
+            pos = impl.indexOf(genome, signature, pos + 1, genome.length);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,138 @@
+package com.genomics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ *  // Objetivo //
+ *     Comprobación diferencial de los dos NucleotideKernel: ejecuta ScalarKernel y VectorKernel
+ *     sobre entradas aleatorias y verifica que den exactamente el mismo resultado. El servidor
+ *     elige uno u otro al iniciar, así que cualquier diferencia sería un resultado clínico
+ *     distinto según la máquina.
+ *  // Casos //
+ *     compact : Bytes de FASTA con mayúsculas, minúsculas, N, "\n", "\r\n", espacios, ">" y
+ *               bytes fuera de ASCII; rangos [from, to) y dstPos aleatorios, con dst justo del
+ *               tamaño necesario (camino final escalar del VectorKernel).
+ *     indexOf : Firmas de 1 a 3 vectores de largo, buscadas en ambas hebras (firma y su
+ *               complemento reverso) como PatientHandler.findMatches, incluidas coincidencias
+ *               que terminan en el último byte del texto y textos de largo no múltiplo del vector.
+ *  // Uso //
+ *     java --add-modules jdk.incubator.vector -cp target/benchmarks.jar com.genomics.NucleotideKernelCheck [rondas] [semilla]
+ *     Con -XX:MaxVectorSize=16 (o 32) se prueba el VectorKernel con vectores más cortos.
+ *     Termina con código 1 e informa el primer caso distinto (con su semilla) si hay diferencias.
+ */
+public class NucleotideKernelCheck {
+    private static final byte[] FASTA_BYTES = "ACGTNacgtn\n\r >-*".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASES = "ACGT".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+        NucleotideKernel scalar = new ScalarKernel();
+        NucleotideKernel vector;
+        try {
+            vector = VectorKernel.create();
+        } catch (LinkageError e) {
+            System.out.println("VectorKernel no disponible (¿falta --add-modules jdk.incubator.vector?): " + e);
+            System.exit(1);
+            return;
+        }
+        if (!(vector instanceof VectorKernel)) {
+            System.out.println("VectorKernel no disponible: vectores de menos de 16 bytes en este procesador");
+            System.exit(1);
+        }
+
+        Random random = new Random(seed);
+        for (int round = 0; round < rounds; round++) {
+            String failure = checkCompact(scalar, vector, random);
+            if (failure == null) failure = checkIndexOf(scalar, vector, random);
+            if (failure != null) {
+                System.out.println("Diferencia entre kernels (semilla " + seed + ", ronda " + round + "): " + failure);
+                System.exit(1);
+            }
+        }
+        System.out.println("Kernels equivalentes: " + vector.name() + " = " + scalar.name()
+                + " (semilla " + seed + ", " + rounds + " rondas)");
+    }
+
+    private static String checkCompact(NucleotideKernel scalar, NucleotideKernel vector, Random random) {
+        byte[] src = new byte[random.nextInt(600)];
+        int lineLength = 1 + random.nextInt(100);
+        boolean crlf = random.nextBoolean();
+        for (int i = 0; i < src.length; i++) {
+            if (i % (lineLength + 1) == lineLength) {
+                src[i] = '\n';
+                if (crlf && i > 0) src[i - 1] = '\r';
+            } else if (random.nextInt(200) == 0) {
+                src[i] = (byte) (0x80 | random.nextInt(0x80));
+            } else {
+                src[i] = FASTA_BYTES[random.nextInt(random.nextBoolean() ? 10 : FASTA_BYTES.length)];
+            }
+        }
+        int from = src.length == 0 ? 0 : random.nextInt(src.length + 1);
+        int to = from + random.nextInt(src.length - from + 1);
+        int dstPos = random.nextInt(40);
+        int size = dstPos + (to - from) + (random.nextBoolean() ? 0 : random.nextInt(100));
+
+        byte[] expected = new byte[size];
+        byte[] actual = new byte[size];
+        int end = scalar.compact(src, from, to, expected, dstPos);
+        int vectorEnd = vector.compact(src, from, to, actual, dstPos);
+        if (end != vectorEnd || !Arrays.equals(expected, dstPos, end, actual, dstPos, vectorEnd)) {
+            return "compact from=" + from + " to=" + to + " dstPos=" + dstPos + " dst=" + size
+                    + " escalar=" + end + " vectorial=" + vectorEnd
+                    + " src=\"" + new String(src, from, to - from, StandardCharsets.ISO_8859_1) + "\"";
+        }
+        return null;
+    }
+
+    private static String checkIndexOf(NucleotideKernel scalar, NucleotideKernel vector, Random random) {
+        byte[] text = new byte[1 + random.nextInt(1_000)];
+        int alphabet = random.nextBoolean() ? 2 : BASES.length;
+        for (int i = 0; i < text.length; i++) {
+            text[i] = random.nextInt(100) == 0 ? (byte) 'N' : BASES[random.nextInt(alphabet)];
+        }
+        int m = 1 + random.nextInt(Math.min(text.length, 3 * 64 + 1));
+        byte[] pattern;
+        if (random.nextInt(3) == 0) {
+            // Coincidencia al final del texto (cruza el último vector completo)
+            pattern = Arrays.copyOfRange(text, text.length - m, text.length);
+        } else if (random.nextBoolean()) {
+            int at = random.nextInt(text.length - m + 1);
+            pattern = Arrays.copyOfRange(text, at, at + m);
+        } else {
+            pattern = new byte[m];
+            for (int i = 0; i < m; i++) pattern[i] = BASES[random.nextInt(alphabet)];
+        }
+        int from = random.nextInt(text.length + 1);
+        int to = from + random.nextInt(text.length - from + 1);
+
+        byte[] reverse = PatientHandler.reverseComplement(new String(pattern, StandardCharsets.US_ASCII))
+                .getBytes(StandardCharsets.US_ASCII);
+        for (byte[] strand : List.of(pattern, reverse)) {
+            List<Integer> expected = allMatches(scalar, text, strand, from, to);
+            List<Integer> actual = allMatches(vector, text, strand, from, to);
+            if (!expected.equals(actual)) {
+                return "indexOf largo=" + text.length + " firma=" + strand.length + " from=" + from + " to=" + to
+                        + (strand == reverse ? " (hebra reversa)" : "")
+                        + " escalar=" + expected + " vectorial=" + actual;
+            }
+        }
+        return null;
+    }
+
+    /* Todas las coincidencias en [from, to), avanzando una base tras cada una (como scanStrand). */
+    private static List<Integer> allMatches(NucleotideKernel kernel, byte[] text, byte[] pattern, int from, int to) {
+        List<Integer> positions = new ArrayList<>();
+        int pos = kernel.indexOf(text, pattern, from, to);
+        while (pos >= 0) {
+            positions.add(pos);
+            pos = kernel.indexOf(text, pattern, pos + 1, to);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,43 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *  // Objetivo //
+ *     Medir la serialización y deserialización JSON de Patient con Gson, tal como la hacen
+ *     el cliente (enviarPacienteServidor) y el servidor (TCPserver).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientCodecBenchmark {
+
+    private final Gson gson = new Gson();
+    private Patient patient;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        patient = new Patient("900", "Paciente Sintetico", "CC900", "sintetico@example.com",
+                new Date(0), 42, "F", "data/adn-genomics/patient900.fasta", "d41d8cd98f00b204", 1_000_000L);
+        json = gson.toJson(patient);
+    }
+
+    @Benchmark
+    public String encode() {
+        return gson.toJson(patient);
+    }
+
+    @Benchmark
+    public Patient decode() {
+        return gson.fromJson(json, Patient.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *  // Objetivo //
+ *     Medir la escritura de los archivos de resultados (texto y JSON, PatientHandler.savePatientResult)
+ *     según la cantidad de enfermedades detectadas (10 posiciones por enfermedad).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dgenomics.data=target/bench-data/results/")
+public class ResultWriteBenchmark {
+
+    @Param({"0", "4", "64"})
+    public int detected;
+
+    private Patient patient;
+    private AnalysisResult result;
+    private DiseasePanel panel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        patient = new Patient("900", "Paciente Sintetico", "CC900", "sintetico@example.com",
+                new Date(0), 42, "F", "data/adn-genomics/patient900.fasta", "d41d8cd98f00b204", 1_000_000L);
+        List<String> diseases = new ArrayList<>();
+        for (int d = 0; d < detected; d++) {
+            diseases.add("Disease_" + d);
+        }
+        Map<String, MatchBuffer> matches = new LinkedHashMap<>();
+        for (String disease : diseases) {
+            MatchBuffer buffer = new MatchBuffer(PatientHandler.MAX_POSITIONS);
+            for (int i = 0; i < 10; i++) {
+                buffer.add(0, i * 1000, i % 2 == 1);
+            }
+            matches.put(disease, buffer);
+        }
+        Random random = new Random(SyntheticData.SEED);
+        Map<String, String> signatures = new LinkedHashMap<>();
+        for (String disease : diseases) {
+            signatures.put(disease, SyntheticData.sequence(random, SyntheticData.SIGNATURE_LENGTH));
+        }
+        panel = DiseasePanel.of(signatures);
+        result = new AnalysisResult(diseases, PatientHandler.MAX_POSITIONS);
+        result.add(0, "chr1", matches);
+    }
+
+    @Benchmark
+    public void savePatientResult() throws IOException {
+        PatientHandler.savePatientResult(patient, result, panel);
+    }
+}
@@ -0,0 +1,100 @@
+package com.genomics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ *  // Objetivo //
+ *     Generar datos genómicos sintéticos y reproducibles (semilla fija) para los benchmarks.
+ *  // Atributos //
+ *     BASES      : Alfabeto de nucleótidos.
+ *     LINE_WIDTH : Longitud de línea de los archivos FASTA generados.
+ *     SEED       : Semilla fija para que dos ejecuciones generen exactamente los mismos datos.
+ *  // Métodos //
+ *     sequence()     : Genera una secuencia aleatoria de N bases.
+ *     writeFasta()   : Escribe una secuencia en formato FASTA con encabezado.
+ *     generate()     : Genera en memoria un paciente y un panel de enfermedades.
+ *     write()        : Escribe el paciente y el panel con la estructura de carpetas de "data/".
+ */
+public final class SyntheticData {
+    private static final char[] BASES = {'A', 'C', 'G', 'T'};
+    private static final int LINE_WIDTH = 60;
+    public static final long SEED = 42L;
+    public static final int SIGNATURE_LENGTH = 24;
+
+    private SyntheticData() {
+    }
+
+    public static String sequence(Random random, int length) {
+        char[] seq = new char[length];
+        for (int i = 0; i < length; i++) {
+            seq[i] = BASES[random.nextInt(4)];
+        }
+        return new String(seq);
+    }
+
+    public static void writeFasta(File file, String header, String sequence) throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
+            bw.write(">" + header + "\n");
+            for (int i = 0; i < sequence.length(); i += LINE_WIDTH) {
+                bw.write(sequence, i, Math.min(LINE_WIDTH, sequence.length() - i));
+                bw.write('\n');
+            }
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Generar en memoria un genoma de paciente y un panel de enfermedades, insertando en el
+     *     genoma la mitad de las firmas para que existan coincidencias.
+     *  // Entradas //
+     *     genomeSize : Número de bases del genoma del paciente.
+     *     panelSize  : Número de enfermedades del panel.
+     */
+    public static Dataset generate(int genomeSize, int panelSize) {
+        Random random = new Random(SEED);
+        StringBuilder genome = new StringBuilder(sequence(random, genomeSize));
+        Map<String, String> panel = new LinkedHashMap<>();
+        for (int d = 0; d < panelSize; d++) {
+            String signature = sequence(random, SIGNATURE_LENGTH);
+            panel.put("Disease_" + d, signature);
+            if (d % 2 == 0 && genomeSize > SIGNATURE_LENGTH) {
+                int pos = random.nextInt(genomeSize - SIGNATURE_LENGTH);
+                genome.replace(pos, pos + SIGNATURE_LENGTH, signature);
+            }
+        }
+        return new Dataset(genome.toString(), panel);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Escribir un Dataset con la estructura de carpetas que espera PatientHandler.
+     *  // Entradas //
+     *     dataRoot  : Carpeta raíz (equivalente a "data/").
+     *     patientId : ID del paciente sintético (archivo adn-genomics/patient<ID>.fasta).
+     */
+    public static void write(Dataset dataset, File dataRoot, String patientId) throws IOException {
+        File adnDir = new File(dataRoot, "adn-genomics");
+        File diseasesDir = new File(dataRoot, "diseases-genomics");
+        adnDir.mkdirs();
+        diseasesDir.mkdirs();
+
+        File[] old = diseasesDir.listFiles();
+        if (old != null) {
+            for (File f : old) f.delete();
+        }
+        for (Map.Entry<String, String> disease : dataset.panel().entrySet()) {
+            writeFasta(new File(diseasesDir, disease.getKey() + ".fasta"), disease.getKey(), disease.getValue());
+        }
+        writeFasta(new File(adnDir, "patient" + patientId + ".fasta"), "patient" + patientId, dataset.genome());
+    }
+
+    /* Genoma del paciente y panel nombre de enfermedad -> firma. */
+    public record Dataset(String genome, Map<String, String> panel) {
+    }
+}
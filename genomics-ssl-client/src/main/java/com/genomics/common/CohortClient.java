@@ -0,0 +1,127 @@
+package com.genomics.common;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ *  // Objetivo //
+ *     Consultar las estadísticas de la cohorte ("COHORT_STATS") de todo el clúster. Cada shard
+ *     solo conoce a sus pacientes, así que se consulta a todos los nodos y se suman los conteos;
+ *     las prevalencias se recalculan sobre el total.
+ *  // Atributos //
+ *     client : ShardedClient usado para enviar la consulta a todos los nodos (broadcast).
+ *  // Métodos //
+ *     stats(disease, hours) : Devuelve el JSON combinado con el mismo formato que la respuesta de
+ *                             un servidor, más "nodes" (nodos que respondieron) y "nodes_total".
+ *     Con "top", cada nodo informa sus enfermedades más frecuentes: una enfermedad que no está
+ *     en el top de algún nodo queda con un conteo menor en el total.
+ *     Si la respuesta de algún nodo no cabía en 64 KB, el nodo la recorta (ver CohortStats.query)
+ *     y el resultado combinado lleva "truncated":true; las partes que falten se toman como vacías.
+ *  // Limitación //
+ *     Un paciente analizado en dos nodos (ej: en su réplica durante una caída de su nodo) se
+ *     cuenta una vez por nodo: los nodos solo envían conteos, no identificadores de pacientes.
+ */
+public class CohortClient {
+    private static final int TOP = 50;
+
+    private final ShardedClient client;
+    private final Gson gson = new Gson();
+
+    public CohortClient(ShardedClient client) {
+        this.client = client;
+    }
+
+    public JsonObject stats(String disease, int hours) throws IOException {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "COHORT_STATS");
+        if (disease != null && !disease.isBlank()) msg.addProperty("disease", disease.trim());
+        msg.addProperty("top", TOP);
+        msg.addProperty("hours", hours);
+
+        List<String> responses = client.broadcast(gson.toJson(msg));
+        long patients = 0;
+        Map<String, Long> groups = new TreeMap<>();
+        Map<String, Long> diseasePatients = new TreeMap<>();
+        Map<String, Long> diseaseHits = new TreeMap<>();
+        Map<String, Map<String, Long>> diseaseGroups = new TreeMap<>();
+        Map<String, Map<String, Long>> timeline = new TreeMap<>();
+        boolean truncated = false;
+
+        for (String response : responses) {
+            if (!response.startsWith("{")) throw new IOException("Respuesta inesperada del servidor: " + response);
+            JsonObject stats = gson.fromJson(response, JsonObject.class);
+            truncated |= stats.has("truncated") && stats.get("truncated").getAsBoolean();
+            if (stats.has("patients")) patients += stats.get("patients").getAsLong();
+            if (stats.has("groups")) sum(groups, stats.getAsJsonObject("groups"));
+            JsonObject nodeDiseases = stats.has("diseases") ? stats.getAsJsonObject("diseases") : new JsonObject();
+            JsonArray nodeTimeline = stats.has("timeline") ? stats.getAsJsonArray("timeline") : new JsonArray();
+            for (Map.Entry<String, JsonElement> entry : nodeDiseases.entrySet()) {
+                JsonObject d = entry.getValue().getAsJsonObject();
+                diseasePatients.merge(entry.getKey(), d.get("patients").getAsLong(), Long::sum);
+                diseaseHits.merge(entry.getKey(), d.get("hits").getAsLong(), Long::sum);
+                Map<String, Long> cells = diseaseGroups.computeIfAbsent(entry.getKey(), k -> new TreeMap<>());
+                for (Map.Entry<String, JsonElement> g : d.getAsJsonObject("groups").entrySet()) {
+                    cells.merge(g.getKey(), g.getValue().getAsJsonObject().get("patients").getAsLong(), Long::sum);
+                }
+            }
+            for (JsonElement point : nodeTimeline) {
+                JsonObject p = point.getAsJsonObject();
+                sum(timeline.computeIfAbsent(p.get("hour").getAsString(), h -> new TreeMap<>()), p.getAsJsonObject("hits"));
+            }
+        }
+
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(diseasePatients.entrySet());
+        ranked.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        JsonObject diseases = new JsonObject();
+        for (Map.Entry<String, Long> entry : ranked) {
+            JsonObject cells = new JsonObject();
+            for (Map.Entry<String, Long> g : diseaseGroups.get(entry.getKey()).entrySet()) {
+                JsonObject cell = new JsonObject();
+                cell.addProperty("patients", g.getValue());
+                cell.addProperty("prevalence", ratio(g.getValue(), groups.getOrDefault(g.getKey(), 0L)));
+                cells.add(g.getKey(), cell);
+            }
+            JsonObject d = new JsonObject();
+            d.addProperty("patients", entry.getValue());
+            d.addProperty("prevalence", ratio(entry.getValue(), patients));
+            d.addProperty("hits", diseaseHits.get(entry.getKey()));
+            d.add("groups", cells);
+            diseases.add(entry.getKey(), d);
+        }
+        JsonArray points = new JsonArray();
+        for (Map.Entry<String, Map<String, Long>> entry : timeline.entrySet()) {
+            JsonObject point = new JsonObject();
+            point.addProperty("hour", entry.getKey());
+            point.add("hits", gson.toJsonTree(entry.getValue()));
+            points.add(point);
+        }
+
+        JsonObject merged = new JsonObject();
+        merged.addProperty("nodes", responses.size());
+        merged.addProperty("nodes_total", client.getRouter().getNodes().size());
+        merged.addProperty("patients", patients);
+        merged.add("groups", gson.toJsonTree(groups));
+        merged.add("diseases", diseases);
+        merged.add("timeline", points);
+        if (truncated) merged.addProperty("truncated", true);
+        return merged;
+    }
+
+    private static void sum(Map<String, Long> target, JsonObject counts) {
+        for (Map.Entry<String, JsonElement> entry : counts.entrySet()) {
+            target.merge(entry.getKey(), entry.getValue().getAsLong(), Long::sum);
+        }
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0 : Math.round(part * 10_000.0 / whole) / 10_000.0;
+    }
+}
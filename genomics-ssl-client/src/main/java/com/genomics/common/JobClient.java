@@ -0,0 +1,78 @@
+package com.genomics.common;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/*
+ *  // Objetivo //
+ *     Usar el modo asíncrono del servidor: enviar un análisis y obtener un job_id de inmediato,
+ *     y luego consultar su estado o suscribirse hasta que termine. La conexión no queda abierta
+ *     mientras el servidor analiza, y el job_id sigue siendo válido tras reconectar.
+ *  // Atributos //
+ *     client : ShardedClient usado para cada petición (una conexión por mensaje). Los trabajos
+ *              viven en el shard del paciente, por eso las consultas se enrutan por patient_id.
+ *  // Configuración //
+ *     SUBSCRIBE_READ_TIMEOUT_MS : Tiempo máximo de espera de una suscripción (por defecto 330000,
+ *                                 algo más que SERVER_SUBSCRIBE_TIMEOUT_MS del servidor).
+ *  // Métodos //
+ *     submit(patient)            : Envía {"type":"SUBMIT","patient":{...}}; devuelve el job_id (o null si el servidor está ocupado).
+ *                                  Cualquier otra respuesta sin job_id (error, TIMEOUT) se lanza como IOException
+ *                                  con el texto del servidor.
+ *     status(patientId, jobId)   : Envía {"type":"STATUS","job_id":...}; devuelve el JSON con el estado.
+ *     subscribe(patientId, jobId): Envía {"type":"SUBSCRIBE","job_id":...}; bloquea hasta que el trabajo termine
+ *                                  (o hasta el tiempo máximo de suscripción del servidor) y devuelve el JSON,
+ *                                  o "BUSY" si el servidor ya tiene demasiadas suscripciones (consultar con status).
+ *     Si el shard dueño no conoce el trabajo (se creó en otro nodo durante una conmutación),
+ *     se consulta el siguiente nodo del anillo.
+ */
+public class JobClient {
+    private final ShardedClient client;
+    private final int subscribeTimeoutMs;
+    private final Gson gson = new Gson();
+
+    public JobClient(ShardedClient client, Properties config) {
+        this.client = client;
+        this.subscribeTimeoutMs = Integer.parseInt(config.getProperty("SUBSCRIBE_READ_TIMEOUT_MS", "330000"));
+    }
+
+    public String submit(Patient patient) throws IOException {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "SUBMIT");
+        msg.add("patient", gson.toJsonTree(patient));
+        String response = client.request(patient.getPatient_id(), gson.toJson(msg));
+        if (response.startsWith("BUSY")) return null;
+        if (response.startsWith("{")) {
+            try {
+                JsonElement jobId = gson.fromJson(response, JsonObject.class).get("job_id");
+                if (jobId != null && jobId.isJsonPrimitive()) return jobId.getAsString();
+            } catch (JsonParseException e) {
+                // Se informa abajo con el texto del servidor
+            }
+        }
+        throw new IOException("Respuesta inesperada del servidor: " + response);
+    }
+
+    public String status(String patientId, String jobId) throws IOException {
+        return client.request(patientId, jobMessage("STATUS", jobId), JobClient::isKnown);
+    }
+
+    public String subscribe(String patientId, String jobId) throws IOException {
+        return client.request(patientId, jobMessage("SUBSCRIBE", jobId), JobClient::isKnown, subscribeTimeoutMs);
+    }
+
+    private static boolean isKnown(String response) {
+        return !response.contains("\"status\":\"UNKNOWN\"");
+    }
+
+    private String jobMessage(String type, String jobId) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", type);
+        msg.addProperty("job_id", jobId);
+        return gson.toJson(msg);
+    }
+}
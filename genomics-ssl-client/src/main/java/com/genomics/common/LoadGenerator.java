@@ -0,0 +1,376 @@
+package com.genomics.common;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ *  // Objetivo //
+ *     Generar carga contra el servidor sin interacción del usuario, para medir latencias y
+ *     throughput antes de incorporar nuevas clínicas.
+ *  // Modos //
+ *     --rate=N        : Lazo abierto. Se programa una petición cada 1/N segundos con independencia de
+ *                       cuánto tarden las anteriores. La latencia se mide desde el instante en que la
+ *                       petición DEBÍA enviarse, de modo que si el servidor (o el propio generador) se
+ *                       atrasa, ese retraso aparece en los percentiles (evita la "omisión coordinada").
+ *     --concurrency=N : Lazo cerrado. N hilos envían peticiones una tras otra; útil para hallar el
+ *                       throughput máximo, pero sus latencias no reflejan la espera de una cola real.
+ *  // Otras opciones //
+ *     --duration=S    : Duración de la medición en segundos (por defecto 30).
+ *     --rate (hasta 1e9) y --duration deben ser mayores que 0, y --concurrency y --max-in-flight al menos 1;
+ *     si no, el generador termina sin enviar nada.
+ *     --warmup=S      : Segundos iniciales que no se incluyen en el reporte (por defecto 5).
+ *     --source=crud   : Reenvía los pacientes activos de PatientCRUD (por defecto).
+ *     --source=synthetic : Genera pacientes sintéticos cuyos IDs se toman de --ids (ej: 001,002).
+ *     --deadline-ms=N : Plazo enviado al servidor en cada petición ("deadline_ms").
+ *     --max-in-flight=N : Límite de peticiones simultáneas en modo --rate (por defecto 1000);
+ *                         las que lo superan no se envían y se cuentan como descartadas. Su latencia
+ *                         se registra como fin de la medición - instante previsto (igual que las que
+ *                         no respondieron a tiempo), para que los percentiles no oculten la sobrecarga.
+ *  // Entradas //
+ *     Archivo "config.properties" (SERVER_NODES o SERVER_ADDRESS/SERVER_PORT, SSL_CERTIFICATE_ROUTE,
+ *     SSL_PASSWORD). Cada petición se enruta al shard de su patient_id (ShardedClient).
+ *  // Salidas //
+ *     Reporte en consola con peticiones programadas, desglosadas en ok, errores, vencidas
+ *     ("TIMEOUT"), rechazadas ("BUSY"), descartadas y sin respuesta; todas cuentan en el total,
+ *     la tasa de error (errores, vencidas y sin respuesta), la tasa de rechazo (rechazadas y
+ *     descartadas) y el throughput ofrecido (además del de respuestas ok). Percentiles de latencia
+ *     (p50, p90, p99, p99.9, máx) de todo salvo los "BUSY", que responden sin analizar y se
+ *     reportan aparte. Si hubo descartadas o sin respuesta se muestra una advertencia: sus
+ *     latencias son una cota inferior.
+ *  // Ejemplo //
+ *     java -cp ... com.genomics.common.LoadGenerator --rate=50 --duration=60 --source=synthetic --ids=001,002,003
+ */
+public class LoadGenerator {
+
+    private final ShardedClient client;
+    private final List<String> payloads;
+    private final List<String> keys = new ArrayList<>();
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private final LatencyRecorder busyLatencies = new LatencyRecorder();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder unfinished = new LongAdder();
+
+    public LoadGenerator(Properties config, List<String> payloads) {
+        this.client = new ShardedClient(config, System.out::println);
+        this.payloads = payloads;
+        Gson gson = new Gson();
+        for (String json : payloads) {
+            keys.add(gson.fromJson(json, Patient.class).getPatient_id());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String invalid = validate(opts);
+        if (invalid != null) {
+            System.out.println("Opción inválida: " + invalid);
+            return;
+        }
+
+        Properties config = new Properties();
+        config.load(LoadGenerator.class.getClassLoader().getResourceAsStream("config.properties"));
+
+        List<String> payloads = "synthetic".equals(opts.getOrDefault("source", "crud"))
+                ? syntheticPayloads(opts.getOrDefault("ids", "001").split(","), 1000)
+                : crudPayloads();
+        if (opts.containsKey("deadline-ms")) {
+            long deadlineMs = Long.parseLong(opts.get("deadline-ms"));
+            payloads.replaceAll(json -> TCPclient.withDeadline(json, deadlineMs));
+        }
+        if (payloads.isEmpty()) {
+            System.out.println("No hay pacientes para enviar.");
+            return;
+        }
+
+        LoadGenerator generator = new LoadGenerator(config, payloads);
+        int duration = Integer.parseInt(opts.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", "5"));
+
+        if (opts.containsKey("concurrency")) {
+            int concurrency = Integer.parseInt(opts.get("concurrency"));
+            generator.runClosedLoop(concurrency, warmup);
+            generator.reset();
+            long elapsed = generator.runClosedLoop(concurrency, duration);
+            generator.report("lazo cerrado, " + concurrency + " hilos", elapsed);
+        } else {
+            double rate = Double.parseDouble(opts.getOrDefault("rate", "10"));
+            int maxInFlight = Integer.parseInt(opts.getOrDefault("max-in-flight", "1000"));
+            generator.runOpenLoop(rate, warmup, maxInFlight);
+            generator.reset();
+            long elapsed = generator.runOpenLoop(rate, duration, maxInFlight);
+            generator.report(String.format(Locale.ROOT, "lazo abierto, %.1f req/s objetivo", rate), elapsed);
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Ejecutar la carga en lazo abierto a una tasa constante.
+     *  // Proceso //
+     *     1. Calcula el instante previsto de cada petición: inicio + i * intervalo.
+     *     2. Espera hasta ese instante y entrega la petición a un pool de hilos (no espera la respuesta).
+     *     3. Cada petición registra su latencia como fin - instante previsto. Si ya hay maxInFlight
+     *        en curso no se envía (descartada) y queda pendiente.
+     *     4. Al terminar la duración, espera a las peticiones en curso hasta un minuto; ese instante
+     *        cierra la medición. Las descartadas y las que siguen sin respuesta registran
+     *        cierre - instante previsto; las respuestas que lleguen después se ignoran.
+     *  // Salidas //
+     *     Tiempo total transcurrido hasta el cierre, en nanosegundos.
+     */
+    public long runOpenLoop(double ratePerSecond, int durationSeconds, int maxInFlight) throws InterruptedException {
+        long intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicInteger inFlight = new AtomicInteger();
+        ExecutorService pool = Executors.newCachedThreadPool();
+        // Instante previsto de cada petición aún sin registrar, por número de petición
+        Map<Long, Long> pending = new ConcurrentHashMap<>();
+        List<Long> droppedStarts = new ArrayList<>();
+
+        long i = 0;
+        for (long intended = start; intended < end; intended = start + (++i) * intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            if (inFlight.get() >= maxInFlight) {
+                droppedStarts.add(intended);
+                continue;
+            }
+            final long request = i;
+            final long intendedStart = intended;
+            final int index = (int) (i % payloads.size());
+            pending.put(request, intendedStart);
+            inFlight.incrementAndGet();
+            pool.execute(() -> {
+                try {
+                    Outcome outcome = send(index);
+                    long latency = System.nanoTime() - intendedStart;
+                    synchronized (pending) {
+                        // Tras el cierre 'pending' está vacío y la respuesta tardía se ignora
+                        if (pending.remove(request) != null) record(outcome, latency);
+                    }
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        synchronized (pending) {
+            long closedAt = System.nanoTime();
+            for (long intendedStart : pending.values()) {
+                unfinished.increment();
+                latencies.record(closedAt - intendedStart);
+            }
+            pending.clear();
+            for (long intendedStart : droppedStarts) {
+                dropped.increment();
+                latencies.record(closedAt - intendedStart);
+            }
+            return closedAt - start;
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Ejecutar la carga en lazo cerrado con un número fijo de hilos.
+     *  // Salidas //
+     *     Tiempo total transcurrido en nanosegundos.
+     */
+    public long runClosedLoop(int concurrency, int durationSeconds) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicInteger next = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int w = 0; w < concurrency; w++) {
+            Thread t = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long sentAt = System.nanoTime();
+                    Outcome outcome = send(Math.floorMod(next.getAndIncrement(), payloads.size()));
+                    record(outcome, System.nanoTime() - sentAt);
+                }
+            }, "load-" + w);
+            t.start();
+            workers.add(t);
+        }
+        for (Thread t : workers) t.join();
+        return System.nanoTime() - start;
+    }
+
+    private enum Outcome { OK, ERROR, TIMEOUT, REJECTED }
+
+    private Outcome send(int index) {
+        try {
+            String response = client.request(keys.get(index), payloads.get(index));
+            if (response.startsWith("BUSY")) return Outcome.REJECTED;
+            if (response.startsWith("TIMEOUT")) return Outcome.TIMEOUT;
+            if (response.startsWith("Error")) return Outcome.ERROR;
+            return Outcome.OK;
+        } catch (IOException e) {
+            return Outcome.ERROR;
+        }
+    }
+
+    private void record(Outcome outcome, long latencyNanos) {
+        switch (outcome) {
+            case OK -> ok.increment();
+            case ERROR -> errors.increment();
+            case TIMEOUT -> timeouts.increment();
+            case REJECTED -> rejected.increment();
+        }
+        // Un "BUSY" vuelve sin analizar: mezclado con el resto bajaría los percentiles
+        (outcome == Outcome.REJECTED ? busyLatencies : latencies).record(latencyNanos);
+    }
+
+    private void reset() {
+        latencies.reset();
+        busyLatencies.reset();
+        ok.reset();
+        errors.reset();
+        timeouts.reset();
+        rejected.reset();
+        dropped.reset();
+        unfinished.reset();
+    }
+
+    /* Imprimir el resumen de la ejecución. */
+    public void report(String mode, long elapsedNanos) {
+        long failed = errors.sum() + timeouts.sum() + unfinished.sum();
+        long refused = rejected.sum() + dropped.sum();
+        long total = ok.sum() + failed + refused;
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("\n=== REPORTE DE CARGA (" + mode + ") ===");
+        System.out.printf(Locale.ROOT, "Duración:        %.1f s%n", seconds);
+        System.out.printf(Locale.ROOT, "Peticiones:      %d (ok %d, errores %d, vencidas %d, rechazadas %d, descartadas %d, sin respuesta %d)%n",
+                total, ok.sum(), errors.sum(), timeouts.sum(), rejected.sum(), dropped.sum(), unfinished.sum());
+        System.out.printf(Locale.ROOT, "Tasa de error:   %.2f %%%n", total == 0 ? 0.0 : 100.0 * failed / total);
+        System.out.printf(Locale.ROOT, "Tasa de rechazo: %.2f %%%n", total == 0 ? 0.0 : 100.0 * refused / total);
+        System.out.printf(Locale.ROOT, "Throughput:      %.2f req/s (ok %.2f req/s)%n", total / seconds, ok.sum() / seconds);
+        long[] sorted = latencies.sorted();
+        System.out.printf(Locale.ROOT, "Latencia (ms):   p50 %.2f | p90 %.2f | p99 %.2f | p99.9 %.2f | máx %.2f%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                percentile(sorted, 99.9), percentile(sorted, 100));
+        long[] busy = busyLatencies.sorted();
+        if (busy.length > 0) {
+            System.out.printf(Locale.ROOT, "Latencia BUSY:   p50 %.2f | p99 %.2f | máx %.2f%n",
+                    percentile(busy, 50), percentile(busy, 99), percentile(busy, 100));
+        }
+        if (dropped.sum() + unfinished.sum() > 0) {
+            System.out.println("ADVERTENCIA: el generador o el servidor no sostuvo la tasa; las latencias de las "
+                    + "descartadas y sin respuesta se cuentan hasta el fin de la medición (cota inferior).");
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    /* Reenviar los pacientes activos registrados con PatientCRUD. */
+    private static List<String> crudPayloads() {
+        Gson gson = new Gson();
+        List<String> payloads = new ArrayList<>();
+        for (Patient p : PatientCRUD.getAllActivePatients()) {
+            payloads.add(gson.toJson(p));
+        }
+        return payloads;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Generar pacientes sintéticos reproducibles (semilla fija) cuyos IDs apuntan a archivos
+     *     FASTA existentes en el servidor.
+     */
+    private static List<String> syntheticPayloads(String[] ids, int count) {
+        Gson gson = new Gson();
+        Random random = new Random(42);
+        List<String> payloads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String id = ids[i % ids.length].trim();
+            Patient p = new Patient(id, "Paciente Sintetico " + i, "SYN" + i, "syn" + i + "@example.com",
+                    new Date(), 18 + random.nextInt(70), random.nextBoolean() ? "M" : "F",
+                    "data/adn-genomics/patient" + id + ".fasta", "", 0);
+            payloads.add(gson.toJson(p));
+        }
+        return payloads;
+    }
+
+    /* Mensaje con la primera opción fuera de rango, o null si todas son válidas. */
+    private static String validate(Map<String, String> opts) {
+        try {
+            double rate = Double.parseDouble(opts.getOrDefault("rate", "10"));
+            // Con más de 1e9 req/s el intervalo sería 0 ns y la programación no avanzaría
+            if (!(rate > 0) || rate > 1e9) return "--rate debe ser mayor que 0 y como máximo 1e9";
+            if (Integer.parseInt(opts.getOrDefault("duration", "30")) <= 0) return "--duration debe ser mayor que 0";
+            if (Integer.parseInt(opts.getOrDefault("warmup", "5")) < 0) return "--warmup no puede ser negativo";
+            if (Integer.parseInt(opts.getOrDefault("concurrency", "1")) < 1) return "--concurrency debe ser al menos 1";
+            if (Integer.parseInt(opts.getOrDefault("max-in-flight", "1000")) < 1) return "--max-in-flight debe ser al menos 1";
+        } catch (NumberFormatException e) {
+            return "valor no numérico (" + e.getMessage() + ")";
+        }
+        return null;
+    }
+
+    /* Convertir argumentos "--clave=valor" en un mapa. */
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                opts.put(arg.substring(2), "true");
+            } else {
+                opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return opts;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Acumular latencias individuales (en nanosegundos) para calcular percentiles exactos
+     *     al final de la ejecución.
+     */
+    private static class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+        }
+
+        synchronized void reset() {
+            size = 0;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
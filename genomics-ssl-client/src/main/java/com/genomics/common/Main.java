@@ -1,10 +1,13 @@
 package com.genomics.common;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
 
@@ -27,7 +30,11 @@ import java.util.Scanner;
  *        - Opción 4: Llama a 'eliminarPaciente()' para realizar un borrado lógico (soft delete).
  *        - Opción 5: Llama a 'listarPacientesActivos()' para mostrar los pacientes activos.
  *        - Opción 6: Llama a 'enviarPacienteServidor()' para enviar datos a un servidor.
- *        - Opción 7: Finaliza la ejecución del programa.
+ *        - Opción 7: Llama a 'enviarTrabajoAsincrono()' para enviar un análisis asíncrono (job).
+ *        - Opción 8: Llama a 'consultarTrabajo()' para consultar el estado de un job.
+ *        - Opción 9: Llama a 'esperarTrabajo()' para esperar el resultado de un job.
+ *        - Opción 10: Llama a 'consultarCohorte()' para ver las estadísticas de la cohorte.
+ *        - Opción 11: Finaliza la ejecución del programa.
  *     4. Se valida que la opción ingresada sea correcta; si no, se muestra un mensaje de error.
  *  // Salidas //
  *     No retorna valores, pero produce:
@@ -38,6 +45,7 @@ import java.util.Scanner;
 
 public class Main {
     private static Properties config = new Properties();
+    private static ShardedClient shardedClient;
     private static final Scanner scanner = new Scanner(System.in);
 
     public static void main(String[] args) {
@@ -47,6 +55,7 @@ public class Main {
             System.out.println("Error cargando configuración: " + e.getMessage());
             return;
         }
+        shardedClient = new ShardedClient(config, System.out::println);
 
         int opcion;
         do {
@@ -57,7 +66,11 @@ public class Main {
             System.out.println("4. Eliminar paciente (soft delete)");
             System.out.println("5. Listar pacientes activos");
             System.out.println("6. Enviar paciente al servidor para análisis");
-            System.out.println("7. Salir");
+            System.out.println("7. Enviar análisis asíncrono (job)");
+            System.out.println("8. Consultar estado de un job");
+            System.out.println("9. Esperar resultado de un job");
+            System.out.println("10. Estadísticas de la cohorte");
+            System.out.println("11. Salir");
             System.out.print("Seleccione una opción: ");
             opcion = Integer.parseInt(scanner.nextLine());
 
@@ -68,10 +81,14 @@ public class Main {
                 case 4 -> eliminarPaciente();
                 case 5 -> listarPacientesActivos();
                 case 6 -> enviarPacienteServidor();
-                case 7 -> System.out.println("Saliendo del sistema...");
+                case 7 -> enviarTrabajoAsincrono();
+                case 8 -> consultarTrabajo();
+                case 9 -> esperarTrabajo();
+                case 10 -> consultarCohorte();
+                case 11 -> System.out.println("Saliendo del sistema...");
                 default -> System.out.println("Opción inválida.");
             }
-        } while (opcion != 7);
+        } while (opcion != 11);
     }
 
     /*
@@ -234,9 +251,10 @@ public class Main {
      *     ID del paciente desde consola.
      *  // Proceso //
      *     1. Solicita el ID del paciente y recupera su información.
-     *     2. Convierte el objeto Patient a formato JSON usando Gson.
-     *     3. Obtiene la dirección y puerto del servidor desde la configuración.
-     *     4. Crea un cliente TCP y envía el JSON al servidor.
+     *     2. Convierte el objeto Patient a formato JSON usando Gson (con "deadline_ms" si
+     *        REQUEST_DEADLINE_MS está configurado).
+     *     3. Envía el JSON al shard del paciente (ShardedClient), con conmutación al siguiente
+     *        nodo si el dueño no responde.
      *  // Salidas //
      *     Ninguna, pero el paciente se envía al servidor para su procesamiento.
      */
@@ -253,11 +271,112 @@ public class Main {
 
         Gson gson = new Gson();
         String json = gson.toJson(patient);
+        String deadline = config.getProperty("REQUEST_DEADLINE_MS");
+        if (deadline != null) {
+            json = TCPclient.withDeadline(json, Long.parseLong(deadline.trim()));
+        }
+
+        try {
+            System.out.println("Sending: " + json);
+            String response = shardedClient.request(patient.getPatient_id(), json);
+            System.out.println("Response: " + response);
+        } catch (IOException e) {
+            System.out.println("Connection error: " + e.getMessage());
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Enviar un paciente al servidor como trabajo asíncrono y mostrar el job_id asignado.
+     */
+    private static void enviarTrabajoAsincrono() {
+        System.out.print("Ingrese el ID del paciente a enviar: ");
+        String patientId = scanner.nextLine();
+
+        Patient patient = PatientCRUD.readPatient(patientId);
+        if (patient == null) {
+            System.out.println("Paciente no encontrado.");
+            return;
+        }
+        try {
+            String jobId = crearJobClient().submit(patient);
+            if (jobId == null) {
+                System.out.println("Servidor ocupado, intente más tarde.");
+            } else {
+                System.out.println("Trabajo enviado. Job ID: " + jobId);
+            }
+        } catch (IOException e) {
+            System.out.println("Connection error: " + e.getMessage());
+        }
+    }
 
-        String serverAddress = config.getProperty("SERVER_ADDRESS", "127.0.0.1");
-        int serverPort = Integer.parseInt(config.getProperty("SERVER_PORT", "2020"));
+    /* Consultar el estado actual de un job. */
+    private static void consultarTrabajo() {
+        System.out.print("Ingrese el ID del paciente: ");
+        String patientId = scanner.nextLine().trim();
+        System.out.print("Ingrese el Job ID: ");
+        String jobId = scanner.nextLine().trim();
+        try {
+            System.out.println("Estado: " + crearJobClient().status(patientId, jobId));
+        } catch (IOException e) {
+            System.out.println("Connection error: " + e.getMessage());
+        }
+    }
+
+    /* Esperar (suscripción) hasta que un job termine y mostrar el resultado. */
+    private static void esperarTrabajo() {
+        System.out.print("Ingrese el ID del paciente: ");
+        String patientId = scanner.nextLine().trim();
+        System.out.print("Ingrese el Job ID: ");
+        String jobId = scanner.nextLine().trim();
+        System.out.println("Esperando resultado...");
+        try {
+            System.out.println("Resultado: " + crearJobClient().subscribe(patientId, jobId));
+        } catch (IOException e) {
+            System.out.println("Connection error: " + e.getMessage());
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Mostrar la prevalencia de las enfermedades en la cohorte (total y por franja de edad y
+     *     sexo) y las coincidencias por hora de las últimas 24 horas, sumando todos los nodos.
+     *  // Entradas //
+     *     Nombre de una enfermedad desde consola (vacío = todas).
+     */
+    private static void consultarCohorte() {
+        System.out.print("Enfermedad (Enter = todas): ");
+        String disease = scanner.nextLine().trim();
+        try {
+            JsonObject stats = new CohortClient(shardedClient).stats(disease, 24);
+            System.out.println("\nNodos consultados: " + stats.get("nodes") + " de " + stats.get("nodes_total"));
+            System.out.println("Pacientes analizados: " + stats.get("patients"));
+            for (Map.Entry<String, JsonElement> g : stats.getAsJsonObject("groups").entrySet()) {
+                System.out.println("  " + g.getKey() + ": " + g.getValue());
+            }
+            JsonObject diseases = stats.getAsJsonObject("diseases");
+            if (diseases.size() == 0) System.out.println("Sin enfermedades detectadas.");
+            for (Map.Entry<String, JsonElement> entry : diseases.entrySet()) {
+                JsonObject d = entry.getValue().getAsJsonObject();
+                System.out.printf("%s: %d pacientes (%.2f%%), %d coincidencias%n", entry.getKey(),
+                        d.get("patients").getAsLong(), d.get("prevalence").getAsDouble() * 100, d.get("hits").getAsLong());
+                for (Map.Entry<String, JsonElement> g : d.getAsJsonObject("groups").entrySet()) {
+                    JsonObject cell = g.getValue().getAsJsonObject();
+                    System.out.printf("    %-10s %d (%.2f%%)%n", g.getKey(),
+                            cell.get("patients").getAsLong(), cell.get("prevalence").getAsDouble() * 100);
+                }
+            }
+            System.out.println("Coincidencias por hora (últimas 24 h):");
+            for (JsonElement point : stats.getAsJsonArray("timeline")) {
+                JsonObject p = point.getAsJsonObject();
+                System.out.println("  " + p.get("hour").getAsString() + "  " + p.get("hits"));
+            }
+        } catch (IOException e) {
+            System.out.println("Connection error: " + e.getMessage());
+        }
+    }
 
-        TCPclient client = new TCPclient(serverAddress, serverPort, config);
-        client.sendMessage(json);
+    private static JobClient crearJobClient() {
+        return new JobClient(shardedClient, config);
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.genomics.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ *  // Objetivo //
+ *     Repartir los pacientes entre varios servidores con hashing consistente por patient_id,
+ *     de modo que el genoma, las cachés y los resultados de cada paciente vivan en un solo nodo,
+ *     y que agregar o quitar un nodo solo mueva una fracción pequeña de los pacientes.
+ *  // Atributos //
+ *     ring          : Anillo hash -> nodo. Cada nodo ocupa VIRTUAL_NODES posiciones para
+ *                     repartir la carga de forma uniforme.
+ *     nodes         : Nodos configurados, en el orden de la configuración.
+ *     healthy       : Último estado de salud conocido de cada nodo (true = responde).
+ *  // Configuración //
+ *     SERVER_NODES : Lista "host:puerto,host:puerto,...". Si no existe se usa un único nodo
+ *                    SERVER_ADDRESS:SERVER_PORT (comportamiento original).
+ *  // Ejemplo local //
+ *     java -Dgenomics.data=data/n1/ com.genomics.Main 4041 9405   (y n2 4042 9406, n3 4043 9407)
+ *     SERVER_NODES=127.0.0.1:4041,127.0.0.1:4042,127.0.0.1:4043
+ *     Cada nodo necesita su propia carpeta de datos (el servidor no arranca si otro proceso ya
+ *     usa la misma), y para que la conmutación devuelva resultados cada una debe tener una
+ *     copia idéntica de adn-genomics y diseases-genomics.
+ */
+public class ShardRouter {
+    private static final int VIRTUAL_NODES = 128;
+
+    private final NavigableMap<Long, Node> ring = new TreeMap<>();
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Node, Boolean> healthy = new ConcurrentHashMap<>();
+
+    public ShardRouter(List<Node> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un nodo");
+        }
+        for (Node node : nodes) {
+            this.nodes.add(node);
+            healthy.put(node, true);
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(hash(node + "#" + v), node);
+            }
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Construir el router a partir de config.properties.
+     */
+    public static ShardRouter fromConfig(Properties config) {
+        List<Node> nodes = new ArrayList<>();
+        String list = config.getProperty("SERVER_NODES");
+        if (list != null && !list.isBlank()) {
+            for (String entry : list.split(",")) {
+                nodes.add(Node.parse(entry.trim()));
+            }
+        } else {
+            nodes.add(new Node(config.getProperty("SERVER_ADDRESS", "127.0.0.1"),
+                    Integer.parseInt(config.getProperty("SERVER_PORT", "2020"))));
+        }
+        return new ShardRouter(nodes);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Obtener los nodos en el orden en que deben intentarse para una clave.
+     *  // Proceso //
+     *     1. Recorre el anillo en sentido horario desde hash(clave), tomando cada nodo distinto.
+     *     2. Coloca primero los nodos sanos (en orden del anillo) y al final los caídos,
+     *        como último recurso por si el chequeo de salud está desactualizado.
+     *  // Salidas //
+     *     Lista de nodos sin repetidos; el primero es el dueño (shard) de la clave.
+     */
+    public List<Node> route(String key) {
+        Set<Node> ordered = new LinkedHashSet<>();
+        long h = hash(key);
+        for (Node node : ring.tailMap(h, true).values()) {
+            ordered.add(node);
+            if (ordered.size() == nodes.size()) break;
+        }
+        for (Node node : ring.headMap(h, false).values()) {
+            if (ordered.size() == nodes.size()) break;
+            ordered.add(node);
+        }
+
+        List<Node> result = new ArrayList<>();
+        for (Node node : ordered) {
+            if (isHealthy(node)) result.add(node);
+        }
+        for (Node node : ordered) {
+            if (!isHealthy(node)) result.add(node);
+        }
+        return result;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public boolean isHealthy(Node node) {
+        return healthy.getOrDefault(node, false);
+    }
+
+    /* Registrar el estado de un nodo; devuelve true si cambió respecto del último conocido. */
+    public boolean markHealthy(Node node, boolean up) {
+        Boolean previous = healthy.put(node, up);
+        return previous != null && previous != up;
+    }
+
+    /* Hash de 64 bits a partir de los primeros 8 bytes del MD5 (buena dispersión, estable entre JVMs). */
+    private static long hash(String key) {
+        try {
+            byte[] d = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) {
+                h = (h << 8) | (d[i] & 0xff);
+            }
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /* Dirección de un servidor del clúster. */
+    public record Node(String host, int port) {
+        public static Node parse(String hostPort) {
+            int colon = hostPort.lastIndexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("Nodo inválido (se espera host:puerto): " + hostPort);
+            return new Node(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1)));
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.genomics.common;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/*
+ *  // Objetivo //
+ *     Enviar peticiones al nodo dueño de cada paciente según ShardRouter, con chequeos de
+ *     salud periódicos y conmutación al siguiente nodo del anillo si el dueño no responde.
+ *     La conmutación solo sirve si los nodos tienen una copia idéntica de los genomas
+ *     (carpeta adn-genomics): un nodo que no tiene el FASTA del paciente responde "NOT_FOUND"
+ *     y se pasa al siguiente; si ninguno lo tiene, la petición falla con IOException.
+ *  // Conmutación //
+ *     - Si no se pudo conectar (ConnectException), el nodo no recibió la petición: se marca
+ *       caído y se prueba el siguiente, sea cual sea el mensaje.
+ *     - Si falla después de conectar (ej: se agota READ_TIMEOUT_MS), el nodo puede estar
+ *       procesando la petición. Solo se reintenta en otro nodo si el mensaje es idempotente
+ *       (IDEMPOTENT_TYPES); un análisis o un "SUBMIT" falla, para no duplicar análisis ni
+ *       trabajos. Un nodo lento (lectura agotada) no se marca caído; eso lo decide el PING.
+ *  // Atributos //
+ *     router : Anillo de hashing consistente con el estado de salud de cada nodo.
+ *     config : Configuración con los datos del certificado SSL (para TCPclient).
+ *     events : Recibe los cambios de estado de los nodos (ej: System.out::println en consola).
+ *  // Configuración //
+ *     HEALTH_CHECK_INTERVAL_MS : Período de los chequeos de salud ("PING"); 0 los desactiva
+ *                                (por defecto 5000). Solo se ejecutan si hay más de un nodo.
+ *     HEALTH_CHECK_TIMEOUT_MS  : Tiempo máximo de lectura de cada "PING" (por defecto 2000), para
+ *                                que un nodo colgado no detenga los chequeos de los demás.
+ *     CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS : Ver TCPclient y Conmutación.
+ */
+public class ShardedClient {
+    private static final String PING = "{\"type\":\"PING\"}";
+    private static final Set<String> IDEMPOTENT_TYPES = Set.of("PING", "STATUS", "SUBSCRIBE", "COHORT_STATS");
+
+    private final ShardRouter router;
+    private final Properties config;
+    private final int healthTimeoutMs;
+    private final Consumer<String> events;
+
+    public ShardedClient(Properties config) {
+        this(config, message -> { });
+    }
+
+    public ShardedClient(Properties config, Consumer<String> events) {
+        this.config = config;
+        this.events = events;
+        this.router = ShardRouter.fromConfig(config);
+        this.healthTimeoutMs = Integer.parseInt(config.getProperty("HEALTH_CHECK_TIMEOUT_MS", "2000"));
+
+        long interval = Long.parseLong(config.getProperty("HEALTH_CHECK_INTERVAL_MS", "5000"));
+        if (interval > 0 && router.getNodes().size() > 1) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "shard-health");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleWithFixedDelay(this::checkHealth, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Enviar un mensaje al shard de la clave, probando el siguiente nodo si falla la conexión
+     *     (o, para mensajes idempotentes, cualquier error; ver Conmutación).
+     *  // Entradas //
+     *     key     : Clave de enrutamiento (patient_id).
+     *     message : Mensaje JSON a enviar.
+     *  // Salidas //
+     *     Respuesta del primer nodo que contesta y tiene el genoma del paciente.
+     *  // Excepciones //
+     *     Lanza IOException con el último error si ningún nodo responde, o si todos los que
+     *     responden contestan "NOT_FOUND" (nunca se devuelve como un resultado válido).
+     */
+    public String request(String key, String message) throws IOException {
+        return request(key, message, response -> true);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Igual que request(key, message), pero también pasa al siguiente nodo si la respuesta
+     *     no cumple 'accept' (ej: un trabajo desconocido porque se creó en otro nodo durante
+     *     una conmutación).
+     *  // Salidas //
+     *     Primera respuesta aceptada, o la última recibida si ninguna lo fue (las "NOT_FOUND"
+     *     no cuentan como recibidas).
+     */
+    public String request(String key, String message, Predicate<String> accept) throws IOException {
+        return request(key, message, accept, 0);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Igual que request(key, message, accept), con un tiempo máximo de lectura propio
+     *     (readTimeoutMs; 0 usa READ_TIMEOUT_MS), ej: suscripciones que esperan un trabajo.
+     */
+    public String request(String key, String message, Predicate<String> accept, int readTimeoutMs) throws IOException {
+        boolean idempotent = isIdempotent(message);
+        IOException lastError = null;
+        String lastResponse = null;
+        for (ShardRouter.Node node : router.route(key)) {
+            try {
+                TCPclient client = new TCPclient(node.host(), node.port(), config);
+                String response = readTimeoutMs > 0 ? client.request(message, readTimeoutMs) : client.request(message);
+                markHealthy(node, true);
+                if (response.startsWith("NOT_FOUND")) {
+                    lastError = new IOException(node + ": " + response);
+                    continue;
+                }
+                if (accept.test(response)) return response;
+                lastResponse = response;
+            } catch (ConnectException e) {
+                markHealthy(node, false);
+                lastError = e;
+            } catch (SocketTimeoutException e) {
+                lastError = new SocketTimeoutException(node + ": sin respuesta (" + e.getMessage() + ")");
+                if (!idempotent) throw lastError;
+            } catch (IOException e) {
+                markHealthy(node, false);
+                lastError = e;
+                if (!idempotent) throw e;
+            }
+        }
+        if (lastResponse != null) return lastResponse;
+        throw lastError != null ? lastError : new IOException("No hay nodos disponibles");
+    }
+
+    /*
+     *  // Objetivo //
+     *     Enviar el mismo mensaje a todos los nodos (consultas que cada shard responde con sus
+     *     propios pacientes, ej: "COHORT_STATS").
+     *  // Salidas //
+     *     Respuestas de los nodos que contestaron; los que fallan se marcan como caídos y se omiten.
+     *  // Excepciones //
+     *     Lanza IOException con el último error si ningún nodo responde.
+     */
+    public List<String> broadcast(String message) throws IOException {
+        List<String> responses = new ArrayList<>();
+        IOException lastError = null;
+        for (ShardRouter.Node node : router.getNodes()) {
+            try {
+                responses.add(new TCPclient(node.host(), node.port(), config).request(message));
+                markHealthy(node, true);
+            } catch (SocketTimeoutException e) {
+                lastError = e;
+            } catch (IOException e) {
+                markHealthy(node, false);
+                lastError = e;
+            }
+        }
+        if (responses.isEmpty()) throw lastError != null ? lastError : new IOException("No hay nodos disponibles");
+        return responses;
+    }
+
+    /* Enviar "PING" a cada nodo y actualizar su estado de salud. */
+    private void checkHealth() {
+        for (ShardRouter.Node node : router.getNodes()) {
+            try {
+                String response = new TCPclient(node.host(), node.port(), config).request(PING, healthTimeoutMs);
+                markHealthy(node, "PONG".equals(response));
+            } catch (IOException e) {
+                markHealthy(node, false);
+            }
+        }
+    }
+
+    private void markHealthy(ShardRouter.Node node, boolean up) {
+        if (router.markHealthy(node, up)) {
+            events.accept("Nodo " + node + (up ? " disponible." : " no disponible."));
+        }
+    }
+
+    /* Mensajes que se pueden repetir en otro nodo sin efectos duplicados (ver Conmutación). */
+    static boolean isIdempotent(String message) {
+        try {
+            JsonElement type = JsonParser.parseString(message).getAsJsonObject().get("type");
+            return type != null && IDEMPOTENT_TYPES.contains(type.getAsString());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.genomics.common;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
 import javax.net.ssl.SSLSocketFactory;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.Properties;
 
@@ -17,6 +22,12 @@ import java.util.Properties;
  *     clientSocket      : Socket TCP que establece la conexión con el servidor.
  *     dataInputStream   : Flujo de entrada para recibir datos del servidor.
  *     dataOutputStream  : Flujo de salida para enviar datos al servidor.
+ *     connectTimeoutMs  : Tiempo máximo para establecer la conexión TCP.
+ *     readTimeoutMs     : Tiempo máximo de espera de cada lectura (incluido el handshake SSL);
+ *                         si se agota, la lectura lanza SocketTimeoutException.
+ *  // Configuración //
+ *     CONNECT_TIMEOUT_MS : Por defecto 5000.
+ *     READ_TIMEOUT_MS    : Por defecto 60000 (mayor que el plazo por defecto del servidor).
  *  // Entradas //
  *     Se establecen mediante el constructor y los métodos de conexión/envío.
  *  // Salidas //
@@ -29,6 +40,8 @@ public class TCPclient {
     private Socket clientSocket;
     private DataInputStream dataInputStream;
     private DataOutputStream dataOutputStream;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
 
     /*
      *  // Objetivo //
@@ -42,6 +55,7 @@ public class TCPclient {
      *     2. Obtiene la ruta y contraseña del certificado SSL desde la configuración.
      *     3. Configura las propiedades del sistema para keyStore y trustStore usando PKCS12.
      *     4. Si falta la ruta o contraseña del certificado, lanza IllegalArgumentException.
+     *     5. Lee los tiempos máximos de conexión y de lectura.
      *  // Salidas //
      *     Ninguna, pero prepara el cliente para establecer conexiones seguras con el servidor.
      */
@@ -49,6 +63,8 @@ public class TCPclient {
     public TCPclient(String serverAddress, int serverPort, Properties config) {
         this.serverAddress = serverAddress;
         this.serverPort = serverPort;
+        this.connectTimeoutMs = Integer.parseInt(config.getProperty("CONNECT_TIMEOUT_MS", "5000"));
+        this.readTimeoutMs = Integer.parseInt(config.getProperty("READ_TIMEOUT_MS", "60000"));
 
         String ksRoute = config.getProperty("SSL_CERTIFICATE_ROUTE");
         String ksPassword = config.getProperty("SSL_PASSWORD");
@@ -68,14 +84,64 @@ public class TCPclient {
 
     /*Establecer una conexión segura SSL/TLS con el servidor TCP.*/
     public void connect() throws IOException {
-        SSLSocketFactory sslSocketFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
-        this.clientSocket = sslSocketFactory.createSocket(serverAddress, serverPort);
+        openSocket(readTimeoutMs);
         System.out.println("Connected to server: " + this.serverAddress + ":" + this.serverPort);
+    }
+
+    /*
+     *  Abrir el socket sin conectar para poder fijar el tiempo máximo de conexión; un nodo que
+     *  acepta la conexión y deja de responder hace fallar la lectura en vez de bloquearla.
+     *  Cualquier fallo al conectar (rechazo, nodo inalcanzable, tiempo agotado) se lanza como
+     *  ConnectException: el servidor no recibió nada y la petición se puede enviar a otro nodo.
+     */
+    private void openSocket(int readTimeoutMs) throws IOException {
+        SSLSocketFactory sslSocketFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+        this.clientSocket = sslSocketFactory.createSocket();
+        try {
+            this.clientSocket.connect(new InetSocketAddress(serverAddress, serverPort), connectTimeoutMs);
+        } catch (ConnectException e) {
+            throw e;
+        } catch (IOException e) {
+            ConnectException failed = new ConnectException(serverAddress + ":" + serverPort + ": " + e.getMessage());
+            failed.initCause(e);
+            throw failed;
+        }
+        this.clientSocket.setSoTimeout(readTimeoutMs);
 
         this.dataInputStream = new DataInputStream(this.clientSocket.getInputStream());
         this.dataOutputStream = new DataOutputStream(this.clientSocket.getOutputStream());
     }
 
+    /*
+     *  // Objetivo //
+     *     Enviar un mensaje y devolver la respuesta sin imprimir nada en consola,
+     *     para usos automatizados como LoadGenerator.
+     *  // Salidas //
+     *     Respuesta del servidor.
+     *  // Excepciones //
+     *     Lanza ConnectException si no se pudo conectar (incluido CONNECT_TIMEOUT_MS), y otra
+     *     IOException si falla el envío o la lectura (SocketTimeoutException si se agota
+     *     READ_TIMEOUT_MS); la conexión se cierra siempre.
+     */
+    public String request(String message) throws IOException {
+        return request(message, readTimeoutMs);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Igual que request(message), con otro tiempo máximo de lectura (ej: suscripciones que
+     *     esperan a que termine un trabajo, o llamadas con un plazo propio).
+     */
+    public String request(String message, int readTimeoutMs) throws IOException {
+        try {
+            openSocket(readTimeoutMs);
+            this.dataOutputStream.writeUTF(message);
+            return this.dataInputStream.readUTF();
+        } finally {
+            this.closeConnection();
+        }
+    }
+
     /*
      *  // Objetivo //
      *     Enviar un mensaje al servidor TCP de forma segura y recibir la respuesta.
@@ -95,6 +161,23 @@ public class TCPclient {
         }
     }
 
+    /*
+     *  // Objetivo //
+     *     Agregar al JSON de una petición el plazo "deadline_ms" que el servidor usa para decidir
+     *     si la admite o responde "BUSY" (servidor ocupado, reintentar más tarde).
+     *  // Entradas //
+     *     json       : Mensaje JSON (ej: un Patient serializado).
+     *     deadlineMs : Tiempo máximo en milisegundos que el cliente está dispuesto a esperar.
+     *  // Salidas //
+     *     El mismo JSON con el campo "deadline_ms".
+     */
+    public static String withDeadline(String json, long deadlineMs) {
+        Gson gson = new Gson();
+        JsonObject obj = gson.fromJson(json, JsonObject.class);
+        obj.addProperty("deadline_ms", deadlineMs);
+        return gson.toJson(obj);
+    }
+
     /*
      *  // Objetivo //
      *     Cerrar de manera segura la conexión TCP y los flujos asociados con el servidor.
@@ -0,0 +1,132 @@
+package com.genomics.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *  // Objetivo //
+ *     Verificar la ubicación de las claves en el anillo (estable, repartida y con pocos
+ *     movimientos al agregar un nodo) y el orden de conmutación cuando hay nodos caídos.
+ */
+class ShardRouterTest {
+
+    private static final ShardRouter.Node A = new ShardRouter.Node("10.0.0.1", 4041);
+    private static final ShardRouter.Node B = new ShardRouter.Node("10.0.0.2", 4042);
+    private static final ShardRouter.Node C = new ShardRouter.Node("10.0.0.3", 4043);
+    private static final ShardRouter.Node D = new ShardRouter.Node("10.0.0.4", 4044);
+
+    @Test
+    void ownerIsStableAcrossRouters() {
+        ShardRouter first = new ShardRouter(List.of(A, B, C));
+        ShardRouter second = new ShardRouter(List.of(C, A, B));
+        for (int i = 0; i < 1_000; i++) {
+            String key = "P" + i;
+            assertEquals(first.route(key).get(0), second.route(key).get(0), key);
+        }
+    }
+
+    @Test
+    void routeListsEveryNodeOnce() {
+        ShardRouter router = new ShardRouter(List.of(A, B, C));
+        for (int i = 0; i < 200; i++) {
+            List<ShardRouter.Node> route = router.route("P" + i);
+            assertEquals(3, route.size());
+            assertEquals(new HashSet<>(List.of(A, B, C)), new HashSet<>(route));
+        }
+    }
+
+    @Test
+    void keysAreSpreadAcrossNodes() {
+        ShardRouter router = new ShardRouter(List.of(A, B, C));
+        Map<ShardRouter.Node, Integer> owned = new HashMap<>();
+        int keys = 9_000;
+        for (int i = 0; i < keys; i++) {
+            owned.merge(router.route("P" + i).get(0), 1, Integer::sum);
+        }
+        for (ShardRouter.Node node : List.of(A, B, C)) {
+            int share = owned.getOrDefault(node, 0);
+            assertTrue(share > keys / 5 && share < keys / 2, node + " tiene " + share + " claves");
+        }
+    }
+
+    @Test
+    void addingNodeOnlyMovesKeysToIt() {
+        ShardRouter before = new ShardRouter(List.of(A, B, C));
+        ShardRouter after = new ShardRouter(List.of(A, B, C, D));
+        int keys = 8_000, moved = 0;
+        for (int i = 0; i < keys; i++) {
+            String key = "P" + i;
+            ShardRouter.Node previous = before.route(key).get(0);
+            ShardRouter.Node current = after.route(key).get(0);
+            if (!previous.equals(current)) {
+                assertEquals(D, current, key);
+                moved++;
+            }
+        }
+        // Se espera ~1/4 de las claves
+        assertTrue(moved > keys / 8 && moved < keys / 2, "se movieron " + moved + " claves");
+    }
+
+    @Test
+    void unhealthyOwnerGoesLast() {
+        ShardRouter router = new ShardRouter(List.of(A, B, C));
+        String key = "P42";
+        List<ShardRouter.Node> healthy = router.route(key);
+
+        assertTrue(router.markHealthy(healthy.get(0), false));
+        List<ShardRouter.Node> failover = router.route(key);
+        assertEquals(List.of(healthy.get(1), healthy.get(2), healthy.get(0)), failover);
+
+        assertTrue(router.markHealthy(healthy.get(0), true));
+        assertEquals(healthy, router.route(key));
+    }
+
+    @Test
+    void allNodesDownKeepsRingOrder() {
+        ShardRouter router = new ShardRouter(List.of(A, B, C));
+        List<ShardRouter.Node> healthy = router.route("P7");
+        for (ShardRouter.Node node : List.of(A, B, C)) router.markHealthy(node, false);
+
+        assertEquals(healthy, router.route("P7"));
+    }
+
+    @Test
+    void markHealthyReportsOnlyChanges() {
+        ShardRouter router = new ShardRouter(List.of(A, B));
+
+        assertFalse(router.markHealthy(A, true));
+        assertTrue(router.markHealthy(A, false));
+        assertFalse(router.markHealthy(A, false));
+        assertFalse(router.isHealthy(A));
+        assertTrue(router.markHealthy(A, true));
+        assertFalse(router.markHealthy(new ShardRouter.Node("10.0.0.9", 1), false));
+    }
+
+    @Test
+    void fromConfigReadsNodeList() {
+        Properties config = new Properties();
+        config.setProperty("SERVER_NODES", "10.0.0.1:4041, 10.0.0.2:4042");
+        assertEquals(List.of(A, B), ShardRouter.fromConfig(config).getNodes());
+
+        Properties single = new Properties();
+        single.setProperty("SERVER_ADDRESS", "10.0.0.3");
+        single.setProperty("SERVER_PORT", "4043");
+        assertEquals(List.of(C), ShardRouter.fromConfig(single).getNodes());
+    }
+
+    @Test
+    void invalidNodesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ShardRouter.Node.parse("10.0.0.1"));
+        assertThrows(IllegalArgumentException.class, () -> new ShardRouter(List.of()));
+    }
+}
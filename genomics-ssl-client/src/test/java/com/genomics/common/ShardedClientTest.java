@@ -0,0 +1,163 @@
+package com.genomics.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *  // Objetivo //
+ *     Verificar la conmutación de ShardedClient contra nodos SSL locales (con el certificado de
+ *     demostración): un nodo que no acepta conexiones se salta con cualquier mensaje, y un nodo
+ *     que no responde a tiempo solo se salta si el mensaje es idempotente.
+ */
+class ShardedClientTest {
+
+    private static final String PASSWORD = "123456";
+
+    private final List<ServerSocket> servers = new ArrayList<>();
+
+    @AfterEach
+    void closeServers() throws IOException {
+        for (ServerSocket server : servers) server.close();
+    }
+
+    @Test
+    void idempotentTypes() {
+        assertTrue(ShardedClient.isIdempotent("{\"type\":\"PING\"}"));
+        assertTrue(ShardedClient.isIdempotent("{\"type\":\"STATUS\",\"job_id\":\"1\"}"));
+        assertTrue(ShardedClient.isIdempotent("{\"type\":\"COHORT_STATS\"}"));
+        assertFalse(ShardedClient.isIdempotent("{\"type\":\"SUBMIT\",\"patient\":{}}"));
+        assertFalse(ShardedClient.isIdempotent("{\"patient_id\":\"P1\"}"));
+        assertFalse(ShardedClient.isIdempotent("no es JSON"));
+    }
+
+    @Test
+    void refusedOwnerFailsOverForAnyMessage() throws Exception {
+        ShardRouter.Node down = new ShardRouter.Node("127.0.0.1", closedPort());
+        AtomicInteger served = new AtomicInteger();
+        ShardRouter.Node up = node(startServer(served, "OK"));
+        List<String> events = new ArrayList<>();
+        ShardedClient client = new ShardedClient(config(down, up), events::add);
+        String key = keyOwnedBy(client.getRouter(), down);
+
+        assertEquals("OK", client.request(key, "{\"patient_id\":\"" + key + "\"}"));
+        assertEquals(1, served.get());
+        assertFalse(client.getRouter().isHealthy(down));
+        assertEquals(List.of("Nodo " + down + " no disponible."), events);
+        assertEquals(up, client.getRouter().route(key).get(0));
+    }
+
+    @Test
+    void slowOwnerIsNotRetriedForNonIdempotentMessage() throws Exception {
+        AtomicInteger slowServed = new AtomicInteger(), otherServed = new AtomicInteger();
+        ShardRouter.Node slow = node(startServer(slowServed, null));
+        ShardRouter.Node other = node(startServer(otherServed, "OK"));
+        ShardedClient client = new ShardedClient(config(slow, other));
+        String key = keyOwnedBy(client.getRouter(), slow);
+
+        assertThrows(SocketTimeoutException.class,
+                () -> client.request(key, "{\"type\":\"SUBMIT\",\"patient\":{\"patient_id\":\"" + key + "\"}}"));
+        assertEquals(0, otherServed.get());
+        // Lento no es lo mismo que caído: el PING decide si se marca
+        assertTrue(client.getRouter().isHealthy(slow));
+
+        assertEquals("OK", client.request(key, "{\"type\":\"STATUS\",\"job_id\":\"1\"}"));
+        assertEquals(1, otherServed.get());
+    }
+
+    /* Nodo SSL local que responde 'reply' a cada mensaje, o nunca responde si 'reply' es null. */
+    private int startServer(AtomicInteger served, String reply) throws Exception {
+        SSLServerSocket server = (SSLServerSocket) serverContext().getServerSocketFactory().createServerSocket(0);
+        servers.add(server);
+        Thread thread = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    new Thread(() -> handle(socket, served, reply)).start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }, "nodo-prueba-" + server.getLocalPort());
+        thread.setDaemon(true);
+        thread.start();
+        return server.getLocalPort();
+    }
+
+    private static void handle(Socket socket, AtomicInteger served, String reply) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            in.readUTF();
+            served.incrementAndGet();
+            if (reply == null) {
+                in.read();
+                return;
+            }
+            new DataOutputStream(socket.getOutputStream()).writeUTF(reply);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static SSLContext serverContext() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = ShardedClientTest.class.getResourceAsStream("/certs/demo_tcp.p12")) {
+            keyStore.load(in, PASSWORD.toCharArray());
+        }
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(keyStore, PASSWORD.toCharArray());
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keys.getKeyManagers(), null, null);
+        return context;
+    }
+
+    private static Properties config(ShardRouter.Node... nodes) throws Exception {
+        Properties config = new Properties();
+        List<String> list = new ArrayList<>();
+        for (ShardRouter.Node node : nodes) list.add(node.toString());
+        config.setProperty("SERVER_NODES", String.join(",", list));
+        config.setProperty("SSL_CERTIFICATE_ROUTE",
+                Path.of(ShardedClientTest.class.getResource("/certs/demo_tcp.p12").toURI()).toString());
+        config.setProperty("SSL_PASSWORD", PASSWORD);
+        config.setProperty("HEALTH_CHECK_INTERVAL_MS", "0");
+        config.setProperty("CONNECT_TIMEOUT_MS", "2000");
+        config.setProperty("READ_TIMEOUT_MS", "500");
+        return config;
+    }
+
+    private static ShardRouter.Node node(int port) {
+        return new ShardRouter.Node("127.0.0.1", port);
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String keyOwnedBy(ShardRouter router, ShardRouter.Node owner) {
+        for (int i = 0; ; i++) {
+            if (router.route("P" + i).get(0).equals(owner)) return "P" + i;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.genomics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ *  // Objetivo //
+ *     Resultado del análisis de un paciente: qué enfermedades se detectaron, cuántas veces,
+ *     en qué registros FASTA (cromosomas) y en qué posiciones.
+ *  // Atributos //
+ *     panel       : Nombres de las enfermedades del panel, en el orden en que se reportan.
+ *     cap         : Máximo de posiciones guardadas por enfermedad (los conteos son siempre exactos).
+ *     recordNames : Índice del registro -> nombre del registro.
+ *     byRecord    : Índice del registro -> (enfermedad -> coincidencias en ese registro). Se
+ *                   indexa por posición para reportar los registros en el orden del archivo
+ *                   aunque se analicen en paralelo.
+ *  // Concurrencia //
+ *     add() puede llamarse desde varios hilos (un registro o región por hilo).
+ */
+public class AnalysisResult {
+    private final List<String> panel;
+    private final int cap;
+    private final TreeMap<Integer, String> recordNames = new TreeMap<>();
+    private final TreeMap<Integer, Map<String, MatchBuffer>> byRecord = new TreeMap<>();
+
+    public AnalysisResult(Collection<String> panel, int cap) {
+        this.panel = new ArrayList<>(panel);
+        this.cap = cap;
+    }
+
+    /* Registrar las coincidencias encontradas en un registro (o en una región de él). */
+    public synchronized void add(int recordIndex, String recordName, Map<String, MatchBuffer> matches) {
+        recordNames.put(recordIndex, recordName);
+        Map<String, MatchBuffer> known = byRecord.computeIfAbsent(recordIndex, r -> new HashMap<>());
+        for (Map.Entry<String, MatchBuffer> entry : matches.entrySet()) {
+            if (entry.getValue().count() == 0) continue;
+            known.computeIfAbsent(entry.getKey(), d -> new MatchBuffer(cap)).addAll(entry.getValue());
+        }
+    }
+
+    /* Enfermedades detectadas en algún registro, en el orden del panel. */
+    public synchronized List<String> getDiseases() {
+        return new ArrayList<>(getCounts().keySet());
+    }
+
+    /* Enfermedad detectada -> total de coincidencias (ambas hebras, todos los registros). */
+    public synchronized Map<String, Long> getCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String disease : panel) {
+            long total = 0;
+            for (Map<String, MatchBuffer> matches : byRecord.values()) {
+                MatchBuffer buffer = matches.get(disease);
+                if (buffer != null) total += buffer.count();
+            }
+            if (total > 0) counts.put(disease, total);
+        }
+        return counts;
+    }
+
+    /* Enfermedad detectada -> registros donde aparece, en el orden del panel y del archivo. */
+    public synchronized Map<String, List<String>> getRecords() {
+        Map<String, List<String>> records = new LinkedHashMap<>();
+        for (String disease : getDiseases()) {
+            List<String> names = new ArrayList<>();
+            for (Map.Entry<Integer, Map<String, MatchBuffer>> entry : byRecord.entrySet()) {
+                if (entry.getValue().containsKey(disease)) names.add(recordNames.get(entry.getKey()));
+            }
+            records.put(disease, names);
+        }
+        return records;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Unir las coincidencias de todos los registros por enfermedad.
+     *  // Salidas //
+     *     Enfermedad detectada -> MatchBuffer con las 'cap' posiciones menores por registro, offset
+     *     y hebra (las primeras del archivo, sin importar el orden de la búsqueda) y el conteo total.
+     */
+    public synchronized Map<String, MatchBuffer> getMatches() {
+        Map<String, MatchBuffer> merged = new LinkedHashMap<>();
+        for (String disease : getDiseases()) {
+            MatchBuffer all = new MatchBuffer(cap);
+            for (Map<String, MatchBuffer> matches : byRecord.values()) {
+                MatchBuffer buffer = matches.get(disease);
+                if (buffer != null) all.addAll(buffer);
+            }
+            merged.put(disease, all);
+        }
+        return merged;
+    }
+
+    /* Enfermedad -> conteo de coincidencias en cada registro donde aparece (índice -> conteo). */
+    public synchronized Map<Integer, Long> getCountsByRecord(String disease) {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (Map.Entry<Integer, Map<String, MatchBuffer>> entry : byRecord.entrySet()) {
+            MatchBuffer buffer = entry.getValue().get(disease);
+            if (buffer != null) counts.put(entry.getKey(), buffer.count());
+        }
+        return counts;
+    }
+
+    /* Índice -> nombre de todos los registros analizados, en el orden del archivo. */
+    public synchronized Map<Integer, String> getRecordNames() {
+        return new TreeMap<>(recordNames);
+    }
+
+    /* Nombre de un registro a partir de su índice (para mostrar posiciones). */
+    public synchronized String recordName(int recordIndex) {
+        return recordNames.getOrDefault(recordIndex, "registro" + (recordIndex + 1));
+    }
+
+    /* Texto para respuestas y archivos de resultados: "Enf_A x3 [chr1, chr3], Enf_B x1 [chr2]" o "Ninguna". */
+    public String describe() {
+        List<String> parts = describeParts();
+        return parts.isEmpty() ? "Ninguna" : String.join(", ", parts);
+    }
+
+    /* Una entrada de describe() por enfermedad detectada ("Enf_A x3 [chr1, chr3]"). */
+    public List<String> describeParts() {
+        Map<String, Long> counts = getCounts();
+        List<String> parts = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : getRecords().entrySet()) {
+            parts.add(entry.getKey() + " x" + counts.get(entry.getKey()) + " [" + String.join(", ", entry.getValue()) + "]");
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,320 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ *  // Objetivo //
+ *     Estadísticas de la cohorte mantenidas en línea: cada análisis terminado actualiza los
+ *     contadores, sin volver a leer los archivos de resultados.
+ *  // Contadores (LongAdder, sin bloqueos entre hilos) //
+ *     PATIENTS : Grupo -> pacientes analizados. Un grupo es "franja de edad/sexo" (ej: "40-49/F").
+ *     DETECTED : Enfermedad -> grupo -> pacientes en los que se detectó.
+ *     HITS     : Enfermedad -> coincidencias sumadas de todos los pacientes.
+ *     TIMELINE : Hora (epoch / 3600) -> enfermedad -> coincidencias encontradas en esa hora.
+ *                Se conservan las últimas COHORT_TIMELINE_HOURS horas.
+ *  // Cada paciente cuenta una vez //
+ *     CONTRIBUTIONS guarda el último aporte de cada paciente (grupo y conteos). Si el paciente
+ *     se vuelve a analizar, o PanelRescreener actualiza su resultado, se resta el aporte anterior
+ *     y se suma el nuevo (con ConcurrentHashMap.compute, atómico por paciente). La línea de
+ *     tiempo, en cambio, acumula cada análisis en la hora en que terminó.
+ *     Una consulta lee los contadores sin detener las actualizaciones en curso.
+ *  // Persistencia //
+ *     Cada COHORT_SNAPSHOT_INTERVAL_MS (si hubo cambios) y al apagar el servidor se escribe
+ *     DATA_ROOT/cohort_stats.json (temporal + renombrado). Al iniciar se restaura desde ahí.
+ *     El archivo es de un solo nodo: cada nodo necesita su propio DATA_ROOT (Main lo bloquea
+ *     con node.lock y no arranca si otro proceso ya lo usa), así dos nodos nunca se pisan ni
+ *     restauran los pacientes del otro.
+ *  // Limitación en el clúster //
+ *     Los conteos son de los pacientes analizados en este nodo. Si un paciente se analizó en
+ *     dos nodos (ej: en la réplica mientras su nodo estaba caído, y luego en su nodo), cuenta
+ *     en ambos, y CohortClient, que suma los nodos, lo cuenta dos veces. Los nodos no comparten
+ *     identificadores de pacientes, así que la suma no puede deduplicarlos.
+ */
+final class CohortStats {
+    private static final File SNAPSHOT_FILE = new File(PatientHandler.DATA_ROOT + "cohort_stats.json");
+    private static final int[] AGE_BANDS = {18, 30, 40, 50, 60, 70, 80};
+    private static final int MAX_RESPONSE_BYTES = 60_000;
+    private static final Gson gson = new Gson();
+
+    private static final Map<String, Contribution> CONTRIBUTIONS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> PATIENTS = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, LongAdder>> DETECTED = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> HITS = new ConcurrentHashMap<>();
+    private static final Map<Long, Map<String, LongAdder>> TIMELINE = new ConcurrentHashMap<>();
+    private static final AtomicBoolean DIRTY = new AtomicBoolean();
+
+    private static volatile int timelineHours = 168;
+
+    /* Aporte de un paciente: su grupo y sus conteos por enfermedad detectada. */
+    private record Contribution(String group, Map<String, Long> counts) {
+    }
+
+    /* Formato de cohort_stats.json. */
+    private static final class Snapshot {
+        private long saved_at;
+        private Map<String, Contribution> patients;
+        private Map<Long, Map<String, Long>> timeline;
+    }
+
+    private CohortStats() {
+    }
+
+    /*
+     *  // Objetivo //
+     *     Restaurar el último snapshot y programar los siguientes.
+     *  // Entradas //
+     *     snapshotIntervalMs : Período entre snapshots; 0 = solo al apagar.
+     *     hours              : Horas que se conservan en la línea de tiempo.
+     */
+    static void start(long snapshotIntervalMs, int hours) {
+        timelineHours = Math.max(1, hours);
+        restore();
+        if (snapshotIntervalMs > 0) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cohort-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleWithFixedDelay(CohortStats::save, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(CohortStats::save, "cohort-flush"));
+    }
+
+    /*
+     *  // Objetivo //
+     *     Registrar el resultado de un paciente, reemplazando su aporte anterior si lo había.
+     *  // Entradas //
+     *     timeline : true para un análisis nuevo (suma sus coincidencias a la hora actual);
+     *                false para una actualización del panel (PanelRescreener).
+     */
+    static void record(Patient patient, AnalysisResult result, boolean timeline) {
+        Map<String, Long> counts = result.getCounts();
+        Contribution next = new Contribution(group(patient.getAge(), patient.getSex()), counts);
+        CONTRIBUTIONS.compute(patient.getPatient_id(), (id, previous) -> {
+            if (previous != null) apply(previous, -1);
+            apply(next, 1);
+            return next;
+        });
+        if (timeline && !counts.isEmpty()) {
+            Map<String, LongAdder> bucket = bucket(System.currentTimeMillis() / 3_600_000);
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                bucket.computeIfAbsent(entry.getKey(), d -> new LongAdder()).add(entry.getValue());
+            }
+        }
+        DIRTY.set(true);
+    }
+
+    private static void apply(Contribution contribution, int sign) {
+        PATIENTS.computeIfAbsent(contribution.group(), g -> new LongAdder()).add(sign);
+        for (Map.Entry<String, Long> entry : contribution.counts().entrySet()) {
+            DETECTED.computeIfAbsent(entry.getKey(), d -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(contribution.group(), g -> new LongAdder()).add(sign);
+            HITS.computeIfAbsent(entry.getKey(), d -> new LongAdder()).add(sign * entry.getValue());
+        }
+    }
+
+    /* Contadores de una hora; al crear una hora nueva se descartan las que salieron de la ventana. */
+    private static Map<String, LongAdder> bucket(long hour) {
+        Map<String, LongAdder> bucket = TIMELINE.get(hour);
+        if (bucket != null) return bucket;
+        bucket = TIMELINE.computeIfAbsent(hour, h -> new ConcurrentHashMap<>());
+        TIMELINE.keySet().removeIf(h -> h <= hour - timelineHours);
+        return bucket;
+    }
+
+    /*
+     *  Grupo de un paciente: "franja de edad/sexo" (ej: "18-29/M"). Sin edad -> franja "?";
+     *  sexo distinto de M/F -> "O".
+     */
+    static String group(Integer age, String sex) {
+        String band = age == null || age < 0 ? "?" : "0-17";
+        for (int i = 0; i < AGE_BANDS.length && age != null; i++) {
+            if (age >= AGE_BANDS[i]) {
+                band = i + 1 < AGE_BANDS.length ? AGE_BANDS[i] + "-" + (AGE_BANDS[i + 1] - 1) : AGE_BANDS[i] + "+";
+            }
+        }
+        String s = sex == null ? "" : sex.trim().toUpperCase();
+        return band + "/" + (s.startsWith("M") ? "M" : s.startsWith("F") ? "F" : "O");
+    }
+
+    /*
+     *  // Objetivo //
+     *     Responder una consulta "COHORT_STATS".
+     *  // Entradas //
+     *     disease : Solo esta enfermedad (opcional, null = todas).
+     *     top     : Máximo de enfermedades, las de más pacientes primero. La línea de tiempo solo
+     *               incluye esas enfermedades.
+     *     hours   : Horas de la línea de tiempo a incluir, hasta la actual.
+     *  // Tamaño //
+     *     La respuesta debe caber en los 64 KB de writeUTF. Si supera MAX_RESPONSE_BYTES se
+     *     quitan primero las horas más antiguas de la línea de tiempo y luego las enfermedades
+     *     con menos pacientes, y se agrega "truncated":true.
+     *  // Salidas //
+     *     {"patients":n,"groups":{"40-49/F":n,...},
+     *      "diseases":{"<enfermedad>":{"patients":n,"prevalence":p,"hits":n,
+     *                                  "groups":{"40-49/F":{"patients":n,"prevalence":p},...}}},
+     *      "timeline":[{"hour":"2026-01-01T10:00:00Z","hits":{"<enfermedad>":n}},...],
+     *      "truncated":true (solo si se recortó)}
+     *     prevalence = pacientes con la enfermedad / pacientes analizados (del total o del grupo).
+     */
+    static JsonObject query(String disease, int top, int hours) {
+        Map<String, Long> patients = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<String, LongAdder> entry : PATIENTS.entrySet()) {
+            long n = entry.getValue().sum();
+            if (n <= 0) continue;
+            patients.put(entry.getKey(), n);
+            total += n;
+        }
+
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>();
+        for (Map.Entry<String, Map<String, LongAdder>> entry : DETECTED.entrySet()) {
+            if (disease != null && !disease.equals(entry.getKey())) continue;
+            long n = 0;
+            for (LongAdder adder : entry.getValue().values()) n += adder.sum();
+            if (n > 0) ranked.add(Map.entry(entry.getKey(), n));
+        }
+        ranked.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        JsonObject diseases = new JsonObject();
+        for (Map.Entry<String, Long> entry : ranked.subList(0, Math.min(Math.max(0, top), ranked.size()))) {
+            JsonObject groups = new JsonObject();
+            for (Map.Entry<String, LongAdder> g : new TreeMap<>(DETECTED.get(entry.getKey())).entrySet()) {
+                long n = g.getValue().sum();
+                if (n <= 0) continue;
+                JsonObject cell = new JsonObject();
+                cell.addProperty("patients", n);
+                cell.addProperty("prevalence", ratio(n, patients.getOrDefault(g.getKey(), 0L)));
+                groups.add(g.getKey(), cell);
+            }
+            JsonObject stats = new JsonObject();
+            stats.addProperty("patients", entry.getValue());
+            stats.addProperty("prevalence", ratio(entry.getValue(), total));
+            stats.addProperty("hits", HITS.getOrDefault(entry.getKey(), new LongAdder()).sum());
+            stats.add("groups", groups);
+            diseases.add(entry.getKey(), stats);
+        }
+
+        JsonArray timeline = new JsonArray();
+        long now = System.currentTimeMillis() / 3_600_000;
+        List<Long> hoursShown = new ArrayList<>(TIMELINE.keySet());
+        hoursShown.sort(Comparator.naturalOrder());
+        for (long hour : hoursShown) {
+            if (hour <= now - hours) continue;
+            JsonObject hits = new JsonObject();
+            for (Map.Entry<String, LongAdder> entry : new TreeMap<>(TIMELINE.get(hour)).entrySet()) {
+                if (diseases.has(entry.getKey())) hits.addProperty(entry.getKey(), entry.getValue().sum());
+            }
+            if (hits.size() == 0) continue;
+            JsonObject point = new JsonObject();
+            point.addProperty("hour", Instant.ofEpochSecond(hour * 3600).toString());
+            point.add("hits", hits);
+            timeline.add(point);
+        }
+
+        JsonObject response = new JsonObject();
+        response.addProperty("patients", total);
+        response.add("groups", gson.toJsonTree(patients));
+        response.add("diseases", diseases);
+        response.add("timeline", timeline);
+        fit(response);
+        return response;
+    }
+
+    /* Recortar la respuesta hasta MAX_RESPONSE_BYTES (ver query). Resta lo que ocupa cada parte quitada, con su clave y su coma. */
+    private static void fit(JsonObject response) {
+        int size = TCPserver.utfLength(response.toString());
+        if (size <= MAX_RESPONSE_BYTES) return;
+        JsonArray timeline = response.getAsJsonArray("timeline");
+        while (size > MAX_RESPONSE_BYTES && !timeline.isEmpty()) {
+            size -= TCPserver.utfLength(timeline.remove(0).toString()) + 1;
+        }
+        JsonObject diseases = response.getAsJsonObject("diseases");
+        List<String> ranked = new ArrayList<>(diseases.keySet());
+        for (int i = ranked.size() - 1; i >= 0 && size > MAX_RESPONSE_BYTES; i--) {
+            String name = ranked.get(i);
+            size -= TCPserver.utfLength(new JsonPrimitive(name).toString()) + TCPserver.utfLength(diseases.remove(name).toString()) + 2;
+        }
+        response.addProperty("truncated", true);
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0 : Math.round(part * 10_000.0 / whole) / 10_000.0;
+    }
+
+    /* Escribir cohort_stats.json si hubo cambios desde el último snapshot. */
+    static void save() {
+        if (!DIRTY.getAndSet(false)) return;
+        Snapshot snapshot = new Snapshot();
+        snapshot.saved_at = System.currentTimeMillis();
+        snapshot.patients = new HashMap<>(CONTRIBUTIONS);
+        snapshot.timeline = new TreeMap<>();
+        for (Map.Entry<Long, Map<String, LongAdder>> hour : TIMELINE.entrySet()) {
+            Map<String, Long> hits = new TreeMap<>();
+            hour.getValue().forEach((d, adder) -> hits.put(d, adder.sum()));
+            snapshot.timeline.put(hour.getKey(), hits);
+        }
+
+        File tmp = new File(SNAPSHOT_FILE.getPath() + ".tmp");
+        try {
+            try (FileWriter writer = new FileWriter(tmp)) {
+                gson.toJson(snapshot, writer);
+            }
+            Files.move(tmp.toPath(), SNAPSHOT_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            DIRTY.set(true);
+            Log.warn("No se pudo guardar el snapshot de la cohorte", "file", SNAPSHOT_FILE.getPath(), "error", e.getMessage());
+        }
+    }
+
+    private static void restore() {
+        if (!SNAPSHOT_FILE.isFile()) return;
+        try (FileReader reader = new FileReader(SNAPSHOT_FILE)) {
+            Snapshot snapshot = gson.fromJson(reader, Snapshot.class);
+            if (snapshot == null) return;
+            if (snapshot.patients != null) {
+                snapshot.patients.forEach((id, contribution) -> CONTRIBUTIONS.compute(id, (k, previous) -> {
+                    if (previous != null) apply(previous, -1);
+                    apply(contribution, 1);
+                    return contribution;
+                }));
+            }
+            if (snapshot.timeline != null) {
+                long oldest = System.currentTimeMillis() / 3_600_000 - timelineHours;
+                snapshot.timeline.forEach((hour, hits) -> {
+                    if (hour <= oldest) return;
+                    Map<String, LongAdder> bucket = TIMELINE.computeIfAbsent(hour, h -> new ConcurrentHashMap<>());
+                    hits.forEach((d, n) -> bucket.computeIfAbsent(d, k -> new LongAdder()).add(n));
+                });
+            }
+            Log.info("Estadísticas de la cohorte restauradas", "pacientes", CONTRIBUTIONS.size(),
+                    "guardadas", Instant.ofEpochMilli(snapshot.saved_at));
+        } catch (IOException | RuntimeException e) {
+            Log.warn("No se pudo restaurar el snapshot de la cohorte", "file", SNAPSHOT_FILE.getPath(), "error", e.getMessage());
+        }
+    }
+}
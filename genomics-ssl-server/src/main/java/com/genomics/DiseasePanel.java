@@ -0,0 +1,85 @@
+package com.genomics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ *  // Objetivo //
+ *     Panel de enfermedades con una huella por firma y una versión del panel completo, para
+ *     saber contra qué panel se calculó cada resultado guardado y qué cambió desde entonces.
+ *  // Atributos //
+ *     signatures   : Nombre de enfermedad -> secuencia, en el orden de readDiseaseFiles.
+ *     fingerprints : Nombre de enfermedad -> SHA-256 (hex) de su secuencia.
+ *     version      : Primeros 16 caracteres del SHA-256 de las líneas "nombre=huella" ordenadas
+ *                    por nombre. Cambia si se agrega, quita o modifica cualquier firma.
+ *     matchers     : Firmas ya preparadas para PatientHandler.findMatches (bytes de la hebra
+ *                    directa y de su complemento reverso), en el mismo orden que signatures.
+ */
+public record DiseasePanel(Map<String, String> signatures, Map<String, String> fingerprints, String version,
+                           List<Matcher> matchers) {
+
+    /*
+     *  // Objetivo //
+     *     Firma de una enfermedad lista para buscar.
+     *  // Atributos //
+     *     forward : Bases de la firma en ASCII.
+     *     reverse : Complemento reverso en ASCII, o null si la firma es palindrómica (igual a su
+     *               complemento reverso) y no hay que buscarla dos veces.
+     */
+    public record Matcher(String name, byte[] forward, byte[] reverse) {
+    }
+
+    /* Panel actual de DISEASES_FOLDER, en memoria (se revalida en segundo plano, ver PanelSnapshot). */
+    public static DiseasePanel load() throws IOException {
+        return PanelSnapshot.current();
+    }
+
+    /* Leer y preparar el panel directamente desde los archivos FASTA de DISEASES_FOLDER. */
+    static DiseasePanel read() throws IOException {
+        return of(PatientHandler.readDiseaseFiles());
+    }
+
+    public static DiseasePanel of(Map<String, String> signatures) {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : signatures.entrySet()) {
+            fingerprints.put(entry.getKey(), sha256(entry.getValue()));
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : new TreeMap<>(fingerprints).entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        return new DiseasePanel(Collections.unmodifiableMap(new LinkedHashMap<>(signatures)),
+                Collections.unmodifiableMap(fingerprints), sha256(sb.toString()).substring(0, 16), compile(signatures));
+    }
+
+    /* Preparar cada firma para la búsqueda (una sola vez por panel, no por registro analizado). */
+    static List<Matcher> compile(Map<String, String> signatures) {
+        List<Matcher> matchers = new ArrayList<>(signatures.size());
+        for (Map.Entry<String, String> entry : signatures.entrySet()) {
+            String signature = entry.getValue();
+            String reverse = PatientHandler.reverseComplement(signature);
+            matchers.add(new Matcher(entry.getKey(), signature.getBytes(StandardCharsets.US_ASCII),
+                    reverse.equals(signature) ? null : reverse.getBytes(StandardCharsets.US_ASCII)));
+        }
+        return Collections.unmodifiableList(matchers);
+    }
+
+    static String sha256(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
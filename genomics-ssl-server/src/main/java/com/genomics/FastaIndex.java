@@ -0,0 +1,269 @@
+package com.genomics;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ *  // Objetivo //
+ *     Índice de un FASTA con varios registros (como el ".fai" de samtools): nombre, longitud y
+ *     posición en el archivo de cada registro. Permite conocer los registros sin leer sus
+ *     secuencias (ScatterGatherCoordinator) y leer solo una región de un registro sin recorrer
+ *     el archivo desde el principio (PatientHandler.scanRegion).
+ *  // Proceso //
+ *     1. of(path) recorre el archivo una vez, solo contando bases por línea (no guarda
+ *        secuencias), con las mismas reglas que FastaReader: encabezados ">", nombres,
+ *        registros sin encabezado y bases = bytes mayores que ' '.
+ *     2. Si todas las líneas de un registro tienen el mismo largo (salvo la última), la
+ *        posición de cualquier base se calcula directamente y read() lee solo los bytes de la
+ *        región. Si no, read() lee desde el inicio del registro hasta el final de la región.
+ *     3. Los índices se guardan en memoria (hasta CACHE_SIZE archivos) y se vuelven a construir
+ *        si cambia el tamaño o la fecha de modificación del archivo.
+ *  // Atributos //
+ *     records : Registros del archivo, en orden (Entry.index = posición en la lista).
+ */
+final class FastaIndex {
+    private static final int CHUNK = 1 << 16;
+    private static final int CACHE_SIZE = 256;
+
+    private static final Map<String, FastaIndex> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FastaIndex> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String path;
+    private final long fileLength;
+    private final long modified;
+    private final List<Entry> records;
+
+    /*
+     *  // Atributos //
+     *     offset    : Posición en el archivo de la primera línea de secuencia (tras el encabezado).
+     *     length    : Número de bases del registro.
+     *     lineBases : Bases por línea, o 0 si las líneas no tienen todas el mismo largo.
+     *     lineBytes : Bytes por línea, incluido el salto de línea ("\n" o "\r\n").
+     */
+    record Entry(int index, String name, long offset, int length, int lineBases, int lineBytes) {
+    }
+
+    private FastaIndex(String path, long fileLength, long modified, List<Entry> records) {
+        this.path = path;
+        this.fileLength = fileLength;
+        this.modified = modified;
+        this.records = records;
+    }
+
+    List<Entry> records() {
+        return records;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Obtener el índice de un FASTA, construyéndolo si no está en memoria o si el archivo cambió.
+     *  // Excepciones //
+     *     Lanza IOException si no se puede leer el archivo (FileNotFoundException si no existe).
+     */
+    static FastaIndex of(String path) throws IOException {
+        File file = new File(path);
+        long length = file.length();
+        long modified = file.lastModified();
+        synchronized (CACHE) {
+            FastaIndex index = CACHE.get(path);
+            if (index != null && index.fileLength == length && index.modified == modified) return index;
+        }
+        FastaIndex index = build(path, length, modified);
+        synchronized (CACHE) {
+            CACHE.put(path, index);
+        }
+        return index;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Leer las bases [from, to) de un registro (en mayúsculas, sin saltos de línea).
+     *  // Excepciones //
+     *     Lanza IOException si falla la lectura o el archivo no coincide con el índice.
+     */
+    byte[] read(int record, int from, int to) throws IOException {
+        Entry entry = records.get(record);
+        if (from < 0 || to > entry.length() || from > to) {
+            throw new IOException("Región fuera del registro " + entry.name() + ": [" + from + ", " + to + ")");
+        }
+        byte[] bases = new byte[to - from];
+        if (bases.length == 0) return bases;
+
+        NucleotideKernel kernel = NucleotideKernel.INSTANCE;
+        int size = 0;
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            if (entry.lineBases() > 0) {
+                long start = byteOffset(entry, from);
+                long end = byteOffset(entry, to - 1) + 1;
+                byte[] raw = new byte[(int) (end - start)];
+                file.seek(start);
+                file.readFully(raw);
+                byte[] compacted = new byte[raw.length];
+                size = kernel.compact(raw, 0, raw.length, compacted, 0);
+                if (size == bases.length) System.arraycopy(compacted, 0, bases, 0, size);
+            } else {
+                // Líneas de distinto largo: se compacta desde el inicio del registro
+                file.seek(entry.offset());
+                byte[] raw = new byte[CHUNK];
+                byte[] compacted = new byte[CHUNK];
+                long seen = 0;
+                int n;
+                while (size < bases.length && (n = file.read(raw)) > 0) {
+                    if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Lectura interrumpida");
+                    int count = kernel.compact(raw, 0, n, compacted, 0);
+                    int skip = (int) Math.max(0, from - seen);
+                    int copy = Math.min(count - skip, bases.length - size);
+                    if (copy > 0) {
+                        System.arraycopy(compacted, skip, bases, size, copy);
+                        size += copy;
+                    }
+                    seen += count;
+                }
+            }
+        }
+        if (size != bases.length) {
+            throw new IOException("El archivo " + path + " no coincide con su índice (registro " + entry.name() + ")");
+        }
+        return bases;
+    }
+
+    private static long byteOffset(Entry entry, int base) {
+        return entry.offset() + (long) (base / entry.lineBases()) * entry.lineBytes() + base % entry.lineBases();
+    }
+
+    /* Recorrer el archivo una vez y registrar nombre, posición, longitud y formato de cada registro. */
+    private static FastaIndex build(String path, long fileLength, long modified) throws IOException {
+        Builder builder = new Builder();
+        try (InputStream in = new FileInputStream(path)) {
+            byte[] buffer = new byte[CHUNK];
+            int n;
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Lectura interrumpida");
+                if ((n = in.read(buffer)) <= 0) break;
+                for (int i = 0; i < n; i++) builder.accept(buffer[i]);
+            }
+        }
+        return new FastaIndex(path, fileLength, modified, builder.finish());
+    }
+
+    /*
+     *  // Objetivo //
+     *     Máquina de estados byte a byte del recorrido de build(). Cada línea de secuencia se
+     *     resume en (bases, bytes, limpia); "limpia" indica que las bases están todas al principio
+     *     de la línea y el resto son saltos de línea o espacios, condición para calcular posiciones.
+     */
+    private static final class Builder {
+        private final List<Entry> records = new ArrayList<>();
+        private long position;
+
+        // Línea actual
+        private boolean lineStart = true;
+        private boolean inHeader;
+        private byte[] header = new byte[256];
+        private int headerSize;
+        private int lineBases;
+        private int lineBytes;
+        private boolean clean = true;
+
+        // Registro actual
+        private String name;
+        private boolean named;
+        private long offset;
+        private long bases;
+        private int firstBases = -1;
+        private int firstBytes;
+        private boolean shortSeen;
+        private boolean uniform = true;
+
+        void accept(byte b) {
+            if (lineStart && b == '>') {
+                inHeader = true;
+                headerSize = 0;
+            } else if (inHeader) {
+                if (b == '\n') {
+                    startRecord(new String(header, 0, headerSize, StandardCharsets.UTF_8), position + 1);
+                    inHeader = false;
+                } else if (b != '\r') {
+                    if (headerSize == header.length) header = Arrays.copyOf(header, header.length * 2);
+                    header[headerSize++] = b;
+                }
+            } else {
+                lineBytes++;
+                if (b > ' ') {
+                    if (lineBases < lineBytes - 1) clean = false;
+                    lineBases++;
+                }
+                if (b == '\n') endLine();
+            }
+            lineStart = !inHeader && b == '\n';
+            position++;
+        }
+
+        List<Entry> finish() {
+            if (inHeader) {
+                startRecord(new String(header, 0, headerSize, StandardCharsets.UTF_8), position);
+            } else if (lineBytes > 0) {
+                endLine();
+            }
+            if (named || bases > 0) addRecord();
+            return records;
+        }
+
+        /* Un encabezado abre un registro nuevo, salvo el primero del archivo (ver FastaReader.next). */
+        private void startRecord(String line, long sequenceOffset) {
+            if (named || bases > 0) addRecord();
+            name = line;
+            named = true;
+            offset = sequenceOffset;
+            bases = 0;
+            firstBases = -1;
+            shortSeen = false;
+            uniform = true;
+        }
+
+        private void endLine() {
+            if (lineBases == 0) {
+                shortSeen = true;
+            } else if (firstBases < 0 && !shortSeen) {
+                firstBases = lineBases;
+                firstBytes = lineBytes;
+                if (!clean) uniform = false;
+            } else if (shortSeen || !clean || lineBases > firstBases || lineBytes > firstBytes) {
+                uniform = false;
+            } else if (lineBases < firstBases || lineBytes < firstBytes) {
+                // Solo puede ser la última línea del registro
+                shortSeen = true;
+            }
+            bases += lineBases;
+            lineBases = 0;
+            lineBytes = 0;
+            clean = true;
+        }
+
+        private void addRecord() {
+            int index = records.size();
+            if (bases > Integer.MAX_VALUE) throw new IllegalStateException("Registro demasiado largo: " + name);
+            String recordName = name == null ? "" : name.trim();
+            int space = recordName.indexOf(' ');
+            if (space >= 0) recordName = recordName.substring(0, space);
+            if (recordName.isEmpty()) recordName = "registro" + (index + 1);
+            boolean direct = uniform && firstBases > 0;
+            records.add(new Entry(index, recordName, offset, (int) bases,
+                    direct ? firstBases : 0, direct ? firstBytes : 0));
+        }
+    }
+}
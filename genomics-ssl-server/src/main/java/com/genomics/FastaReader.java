@@ -0,0 +1,134 @@
+package com.genomics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ *  // Objetivo //
+ *     Leer un archivo FASTA con varios registros (ej: un genoma por cromosomas) de a un
+ *     registro por vez, sin cargar el archivo completo en memoria.
+ *  // Uso //
+ *     try (FastaReader reader = new FastaReader(path)) {
+ *         FastaRecord record;
+ *         while ((record = reader.next()) != null) { ... }
+ *     }
+ *  // Formato //
+ *     Cada línea que comienza con ">" abre un registro nuevo; su nombre es la primera palabra
+ *     del encabezado. Las líneas de secuencia anteriores al primer encabezado (o los
+ *     encabezados vacíos) forman un registro sin nombre, que se llama "registro<N>".
+ *  // Proceso //
+ *     El archivo se lee en bloques de CHUNK bytes. Dentro de un bloque se busca el siguiente
+ *     ">" y todo lo anterior se copia a la secuencia con NucleotideKernel.compact, que descarta
+ *     saltos de línea y espacios y pasa las bases a mayúsculas (varias bases por instrucción
+ *     si la Vector API está disponible).
+ *     Si el hilo que lee es interrumpido, next() lanza InterruptedIOException al pedir el
+ *     siguiente bloque.
+ */
+public class FastaReader implements Closeable {
+    private static final int CHUNK = 1 << 16;
+    private static final byte[] HEADER = {'>'};
+
+    private final InputStream in;
+    private final NucleotideKernel kernel = NucleotideKernel.INSTANCE;
+    private final byte[] buffer = new byte[CHUNK];
+    private int pos;
+    private int limit;
+    private boolean lineStart = true;
+    private String pendingHeader;
+    private int index;
+
+    public FastaReader(String path) throws IOException {
+        this.in = new FileInputStream(path);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Leer el siguiente registro del archivo.
+     *  // Salidas //
+     *     El registro leído, o null si no quedan registros.
+     *  // Excepciones //
+     *     Lanza IOException si ocurre un error al leer el archivo.
+     */
+    public FastaRecord next() throws IOException {
+        String header = pendingHeader;
+        pendingHeader = null;
+        byte[] sequence = new byte[CHUNK];
+        int size = 0;
+
+        while (pos < limit || fill()) {
+            if (lineStart && buffer[pos] == '>') {
+                pos++;
+                String line = readLine();
+                if (header == null && size == 0) {
+                    header = line;
+                    continue;
+                }
+                pendingHeader = line;
+                break;
+            }
+
+            // Secuencia hasta el próximo ">" (o el final del bloque)
+            int gt = kernel.indexOf(buffer, HEADER, pos, limit);
+            int end = gt < 0 ? limit : gt;
+            if (end > pos) {
+                sequence = ensure(sequence, size + (end - pos));
+                size = kernel.compact(buffer, pos, end, sequence, size);
+                lineStart = buffer[end - 1] == '\n';
+                pos = end;
+            } else {
+                // ">" en medio de una línea: no es un encabezado, se conserva como en la secuencia
+                sequence = ensure(sequence, size + 1);
+                sequence[size++] = '>';
+                pos++;
+            }
+        }
+        if (header == null && size == 0) return null;
+
+        FastaRecord record = new FastaRecord(index, recordName(header, index), Arrays.copyOf(sequence, size));
+        index++;
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean fill() throws IOException {
+        // Un análisis cancelado (hilo interrumpido) deja de leer en el siguiente bloque
+        if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Lectura interrumpida");
+        int n = in.read(buffer, 0, buffer.length);
+        pos = 0;
+        limit = Math.max(0, n);
+        return n > 0;
+    }
+
+    /* Leer el resto de la línea actual (puede cruzar bloques), sin "\r\n". */
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (pos < limit || fill()) {
+            byte b = buffer[pos++];
+            if (b == '\n') break;
+            if (b != '\r') line.write(b);
+        }
+        lineStart = true;
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ensure(byte[] array, int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private static String recordName(String header, int index) {
+        String name = header == null ? "" : header.trim();
+        int space = name.indexOf(' ');
+        if (space >= 0) name = name.substring(0, space);
+        return name.isEmpty() ? "registro" + (index + 1) : name;
+    }
+}
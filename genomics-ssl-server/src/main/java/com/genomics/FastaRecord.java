@@ -0,0 +1,13 @@
+package com.genomics;
+
+/*
+ *  // Objetivo //
+ *     Representar un registro de un archivo FASTA (ej: un cromosoma): el texto que sigue a ">"
+ *     y las líneas de secuencia hasta el siguiente encabezado.
+ *  // Atributos //
+ *     index    : Posición del registro dentro del archivo (0 = primero).
+ *     name     : Identificador del registro (primera palabra del encabezado, ej: "chr1").
+ *     sequence : Bases del registro en ASCII, en mayúsculas y sin saltos de línea ni espacios.
+ */
+public record FastaRecord(int index, String name, byte[] sequence) {
+}
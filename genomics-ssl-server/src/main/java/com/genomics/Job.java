@@ -0,0 +1,109 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ *  // Objetivo //
+ *     Representar un análisis asíncrono enviado con un mensaje "SUBMIT".
+ *  // Atributos //
+ *     job_id       : Identificador único del trabajo (UUID).
+ *     status       : QUEUED, RUNNING, DONE o FAILED.
+ *     patient      : Paciente a analizar.
+ *     diseases     : Enfermedades detectadas (solo cuando status es DONE).
+ *     records      : Enfermedad -> registros FASTA donde se detectó (solo cuando status es DONE).
+ *     counts       : Enfermedad -> número de coincidencias (solo cuando status es DONE). Las
+ *                    posiciones quedan en el archivo de resultados del paciente.
+ *     error        : Mensaje de error (solo cuando status es FAILED).
+ *     submitted_at : Instante de envío (milisegundos desde epoch).
+ *     finished_at  : Instante de finalización (0 mientras no termina).
+ */
+public class Job {
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private String job_id;
+    private String status;
+    private Patient patient;
+    private List<String> diseases;
+    private Map<String, List<String>> records;
+    private Map<String, Long> counts;
+    private String error;
+    private long submitted_at;
+    private long finished_at;
+
+    public Job(String job_id, Patient patient) {
+        this.job_id = job_id;
+        this.patient = patient;
+        this.status = QUEUED;
+        this.submitted_at = System.currentTimeMillis();
+    }
+
+    public String getJob_id() {
+        return job_id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public List<String> getDiseases() {
+        return diseases;
+    }
+
+    public void setDiseases(List<String> diseases) {
+        this.diseases = diseases;
+    }
+
+    public Map<String, List<String>> getRecords() {
+        return records;
+    }
+
+    public void setRecords(Map<String, List<String>> records) {
+        this.records = records;
+    }
+
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+
+    public void setCounts(Map<String, Long> counts) {
+        this.counts = counts;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getSubmitted_at() {
+        return submitted_at;
+    }
+
+    public long getFinished_at() {
+        return finished_at;
+    }
+
+    public void setFinished_at(long finished_at) {
+        this.finished_at = finished_at;
+    }
+
+    public boolean isFinished() {
+        return DONE.equals(status) || FAILED.equals(status);
+    }
+}
@@ -0,0 +1,275 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/*
+ *  // Objetivo //
+ *     Gestionar los análisis asíncronos: recibir trabajos, ejecutarlos en un pool propio
+ *     (separado de las peticiones síncronas) y conservar su estado en disco para que el
+ *     cliente pueda consultarlo aunque se reconecte o el servidor se reinicie.
+ *  // Atributos //
+ *     JOBS_FOLDER : Carpeta donde se guarda cada trabajo como "job_<ID>.json".
+ *     jobs        : Trabajos conocidos, indexados por job_id.
+ *     completions : Futuros que se completan cuando termina cada trabajo (para "SUBSCRIBE").
+ *     pool        : Hilos que ejecutan los trabajos (SERVER_JOB_THREADS).
+ *     maxPending  : Máximo de trabajos en cola o en ejecución (SERVER_JOB_QUEUE_CAPACITY).
+ *     retentionMs : Tiempo que se conserva un trabajo terminado (SERVER_JOB_RETENTION_MS). Pasado
+ *                   ese tiempo se quita de memoria y se borra su archivo; "STATUS" responde UNKNOWN.
+ *     analyzer    : Función que analiza un paciente (local o distribuida, según SERVER_MODE).
+ *                   Si lanza una excepción (ej: el FASTA del paciente no existe) el trabajo
+ *                   termina FAILED con el mensaje de error.
+ */
+public class JobManager {
+    private static final String JOBS_FOLDER = PatientHandler.DATA_ROOT + "jobs/";
+
+    private static final Gson gson = new GsonBuilder()
+            .setPrettyPrinting()
+            .create();
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Job>> completions = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService pool;
+    private final int maxPending;
+    private final long retentionMs;
+    private final Function<Patient, AnalysisResult> analyzer;
+
+    public JobManager(int threads, int maxPending, long retentionMs, Function<Patient, AnalysisResult> analyzer) {
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.maxPending = maxPending;
+        this.retentionMs = retentionMs;
+        this.analyzer = analyzer;
+        if (retentionMs > 0) {
+            ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "job-evict");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1_000, Math.min(retentionMs, 60_000));
+            evictor.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Cargar los trabajos guardados en disco y volver a encolar los que no terminaron.
+     *  // Proceso //
+     *     1. Lee cada "job_<ID>.json" de JOBS_FOLDER.
+     *     2. Los trabajos DONE/FAILED quedan disponibles para consulta; los que terminaron hace
+     *        más de retentionMs se borran sin cargarlos.
+     *     3. Los QUEUED/RUNNING (interrumpidos por un reinicio) se encolan de nuevo.
+     */
+    public void recover() {
+        File[] files = new File(JOBS_FOLDER).listFiles((dir, name) -> name.startsWith("job_") && name.endsWith(".json"));
+        if (files == null) return;
+
+        int resumed = 0, pruned = 0;
+        for (File file : files) {
+            try {
+                Job job;
+                try (FileReader reader = new FileReader(file)) {
+                    job = gson.fromJson(reader, Job.class);
+                }
+                if (job == null || job.getJob_id() == null) continue;
+                if (expired(job, System.currentTimeMillis())) {
+                    // Borrar después de cerrar el archivo (en Windows no se puede borrar abierto)
+                    Files.deleteIfExists(file.toPath());
+                    pruned++;
+                    continue;
+                }
+                jobs.put(job.getJob_id(), job);
+                completions.put(job.getJob_id(), new CompletableFuture<>());
+                if (job.isFinished()) {
+                    completions.get(job.getJob_id()).complete(job);
+                } else {
+                    job.setStatus(Job.QUEUED);
+                    pending.incrementAndGet();
+                    enqueue(job);
+                    resumed++;
+                }
+            } catch (Exception e) {
+                Log.warn("No se pudo recuperar el trabajo", "file", file.getName(), "error", e.getMessage());
+            }
+        }
+        Log.info("Trabajos recuperados", "total", jobs.size(), "reanudados", resumed, "borrados", pruned);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Registrar un nuevo trabajo para un paciente.
+     *  // Salidas //
+     *     El Job creado (estado QUEUED), o null si ya hay maxPending trabajos pendientes. El
+     *     lugar en la cola se reserva con compareAndSet, así que dos "SUBMIT" simultáneos no
+     *     pueden superar el límite.
+     *  // Excepciones //
+     *     Lanza IOException si no se puede guardar el trabajo en disco.
+     */
+    public Job submit(Patient patient) throws IOException {
+        int current;
+        do {
+            current = pending.get();
+            if (current >= maxPending) return null;
+        } while (!pending.compareAndSet(current, current + 1));
+
+        Job job = new Job(UUID.randomUUID().toString(), patient);
+        try {
+            save(job);
+        } catch (IOException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+        jobs.put(job.getJob_id(), job);
+        completions.put(job.getJob_id(), new CompletableFuture<>());
+        enqueue(job);
+        return job;
+    }
+
+    public Job get(String jobId) {
+        return jobId == null ? null : jobs.get(jobId);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Esperar a que un trabajo termine (mensaje "SUBSCRIBE").
+     *  // Entradas //
+     *     jobId     : ID del trabajo.
+     *     timeoutMs : Tiempo máximo de espera.
+     *  // Salidas //
+     *     El Job terminado, o null si el ID no existe.
+     *  // Excepciones //
+     *     TimeoutException si el trabajo no terminó dentro de timeoutMs.
+     */
+    public Job await(String jobId, long timeoutMs) throws Exception {
+        CompletableFuture<Job> done = jobId == null ? null : completions.get(jobId);
+        if (done == null) return null;
+        return done.get(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /* Trabajos en cola o en ejecución. */
+    public int pending() {
+        return pending.get();
+    }
+
+    /* Encolar un trabajo cuyo lugar en 'pending' ya fue reservado. */
+    private void enqueue(Job job) {
+        pool.execute(() -> run(job));
+    }
+
+    /*
+     *  // Objetivo //
+     *     Quitar de memoria y de disco los trabajos que terminaron hace más de retentionMs, para
+     *     que ni la memoria ni el tiempo de recover() crezcan con cada trabajo recibido.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (Job job : jobs.values()) {
+            synchronized (job) {
+                if (!expired(job, now)) continue;
+            }
+            jobs.remove(job.getJob_id());
+            completions.remove(job.getJob_id());
+            try {
+                Files.deleteIfExists(new File(JOBS_FOLDER + "job_" + job.getJob_id() + ".json").toPath());
+            } catch (IOException e) {
+                Log.warn("No se pudo borrar el trabajo", "job_id", job.getJob_id(), "error", e.getMessage());
+            }
+            evicted++;
+        }
+        if (evicted > 0) Log.info("Trabajos terminados descartados", "total", evicted, "conservados", jobs.size());
+    }
+
+    private boolean expired(Job job, long now) {
+        return retentionMs > 0 && job.isFinished() && job.getFinished_at() > 0
+                && now - job.getFinished_at() > retentionMs;
+    }
+
+    private void run(Job job) {
+        try {
+            synchronized (job) {
+                job.setStatus(Job.RUNNING);
+                save(job);
+            }
+            AnalysisResult result = analyzer.apply(job.getPatient());
+            synchronized (job) {
+                job.setDiseases(result.getDiseases());
+                job.setRecords(result.getRecords());
+                job.setCounts(result.getCounts());
+                job.setStatus(Job.DONE);
+                job.setFinished_at(System.currentTimeMillis());
+                save(job);
+            }
+        } catch (Exception e) {
+            ServerMetrics.error();
+            synchronized (job) {
+                job.setError(e.getMessage());
+                job.setStatus(Job.FAILED);
+                job.setFinished_at(System.currentTimeMillis());
+                try {
+                    save(job);
+                } catch (IOException ignored) {
+                }
+            }
+        } finally {
+            pending.decrementAndGet();
+            completions.get(job.getJob_id()).complete(job);
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Guardar el trabajo como JSON. Se escribe primero un archivo temporal y luego se
+     *     reemplaza el definitivo, para no dejar archivos a medio escribir si el proceso cae.
+     */
+    private static void save(Job job) throws IOException {
+        File folder = new File(JOBS_FOLDER);
+        if (!folder.exists()) folder.mkdirs();
+
+        File tmp = new File(JOBS_FOLDER + "job_" + job.getJob_id() + ".json.tmp");
+        try (FileWriter writer = new FileWriter(tmp)) {
+            gson.toJson(job, writer);
+        }
+        Files.move(tmp.toPath(), new File(JOBS_FOLDER + "job_" + job.getJob_id() + ".json").toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Construir la respuesta JSON de un trabajo para el cliente (sin los datos personales del paciente).
+     */
+    public static String toResponse(Job job) {
+        JsonObject obj = new JsonObject();
+        synchronized (job) {
+            obj.addProperty("job_id", job.getJob_id());
+            obj.addProperty("status", job.getStatus());
+            obj.addProperty("patient_id", job.getPatient().getPatient_id());
+            if (job.getDiseases() != null) obj.add("diseases", gson.toJsonTree(job.getDiseases()));
+            if (job.getRecords() != null) obj.add("records", gson.toJsonTree(job.getRecords()));
+            if (job.getCounts() != null) obj.add("counts", gson.toJsonTree(job.getCounts()));
+            if (job.getError() != null) obj.addProperty("error", job.getError());
+            obj.addProperty("submitted_at", job.getSubmitted_at());
+            if (job.getFinished_at() > 0) obj.addProperty("finished_at", job.getFinished_at());
+        }
+        return obj.toString();
+    }
+}
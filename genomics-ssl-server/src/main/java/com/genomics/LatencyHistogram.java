@@ -0,0 +1,144 @@
+package com.genomics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ *  // Objetivo //
+ *     Registrar latencias de una etapa del servidor sin bloqueos, para poder consultar
+ *     percentiles (p50, p90, p99) desde varios hilos mientras otros hilos registran.
+ *  // Atributos //
+ *     name    : Nombre de la etapa medida (ej: "tls_handshake").
+ *     buckets : Contadores por cubeta. Las cubetas son logarítmicas en base 2 con
+ *               SUB_BUCKETS subdivisiones lineales por potencia, en microsegundos
+ *               (error relativo máximo ~12%).
+ *     count   : Número total de muestras registradas.
+ *     sumNanos: Suma de todas las latencias en nanosegundos (para la media).
+ *     maxNanos: Latencia máxima observada.
+ *  // Concurrencia //
+ *     Solo se usan operaciones atómicas (AtomicLongArray, LongAdder, AtomicLong), por lo
+ *     que record() nunca bloquea el hilo que atiende la petición.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAGNITUDES = 40;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(MAGNITUDES * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Registrar una muestra de latencia.
+     *  // Entradas //
+     *     nanos : Duración medida con System.nanoTime().
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(bucketIndex(nanos / 1_000));
+        count.increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /* Registrar la latencia transcurrida desde startNanos (obtenido con System.nanoTime()). */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Calcular el índice de cubeta para un valor en microsegundos.
+     *  // Proceso //
+     *     Valores menores que SUB_BUCKETS van directo a la primera magnitud; para el resto
+     *     se toma la posición del bit más alto (magnitud) y los SUB_BUCKET_BITS siguientes
+     *     bits como subdivisión lineal.
+     */
+    private static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        int sub = (int) (micros >>> (magnitude - 1)) & (SUB_BUCKETS - 1);
+        int index = magnitude * SUB_BUCKETS + sub;
+        return Math.min(index, MAGNITUDES * SUB_BUCKETS - 1);
+    }
+
+    /* Valor superior (en microsegundos) representado por una cubeta. */
+    private static long bucketUpperMicros(int index) {
+        int magnitude = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (magnitude == 0) return sub;
+        return ((long) (SUB_BUCKETS | sub) << (magnitude - 1)) + (1L << (magnitude - 1)) - 1;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Estimar el percentil indicado a partir de las cubetas.
+     *  // Entradas //
+     *     percentile : Valor entre 0 y 100.
+     *  // Salidas //
+     *     Latencia estimada en microsegundos (0 si no hay muestras).
+     */
+    public long percentileMicros(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperMicros(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : sumNanos.sum() / 1_000.0 / n;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return percentileMicros(50);
+    }
+
+    @Override
+    public long getP90Micros() {
+        return percentileMicros(90);
+    }
+
+    @Override
+    public long getP99Micros() {
+        return percentileMicros(99);
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return maxNanos.get() / 1_000;
+    }
+}
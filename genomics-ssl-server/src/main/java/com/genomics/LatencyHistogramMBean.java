@@ -0,0 +1,20 @@
+package com.genomics;
+
+/*
+ *  // Objetivo //
+ *     Interfaz JMX (Standard MBean) para exponer un LatencyHistogram en herramientas como
+ *     JConsole o VisualVM bajo el nombre "com.genomics:type=Latency,stage=<etapa>".
+ */
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP90Micros();
+
+    long getP99Micros();
+
+    long getMaxMicros();
+}
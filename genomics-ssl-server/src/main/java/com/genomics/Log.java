@@ -0,0 +1,307 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/*
+ *  // Objetivo //
+ *     Registro de eventos (logs) del servidor fuera del camino de la petición: el hilo que
+ *     atiende al cliente solo deja el evento en un buffer circular sin bloqueos y un hilo de
+ *     fondo ("log-writer") le da formato, quita datos personales y lo escribe en consola o archivo.
+ *  // Formato //
+ *     2026-01-01T12:00:00.000Z INFO  [hilo] mensaje clave=valor clave2="valor con espacios"
+ *  // Protección //
+ *     - Niveles: se descartan en el acto los eventos por debajo de LOG_LEVEL.
+ *     - Límite de tasa: como máximo LOG_RATE_LIMIT eventos por segundo (los ERROR no se limitan).
+ *     - Muestreo: los eventos por petición (request) solo se registran para 1 de cada
+ *       LOG_REQUEST_SAMPLE peticiones, decidido al inicio de cada una (beginRequest).
+ *     - Si el buffer está lleno el evento se descarta: nunca se bloquea al hilo que atiende.
+ *     - Sin eventos, "log-writer" queda detenido hasta que un productor lo despierta (ver writerLoop).
+ *     Los eventos descartados o suprimidos se informan periódicamente con un WARN.
+ *  // Datos personales //
+ *     Todos los campos de Patient salvo patient_id (nombre, documento, correo, edad, sexo, fecha
+ *     de registro, notas clínicas...) se reemplazan por "***", tanto si se pasan como clave del
+ *     evento como si aparecen dentro de un JSON (ej: el mensaje recibido). La lista se obtiene
+ *     de los campos de la clase, así que un campo nuevo de Patient queda cubierto sin cambios aquí.
+ *  // Configuración //
+ *     LOG_LEVEL          : DEBUG, INFO, WARN o ERROR (por defecto INFO).
+ *     LOG_FILE           : Archivo donde agregar los eventos, en UTF-8 (opcional).
+ *     LOG_CONSOLE        : Escribir también en la consola (por defecto true).
+ *     LOG_RATE_LIMIT     : Eventos por segundo; 0 = sin límite (por defecto 1000).
+ *     LOG_REQUEST_SAMPLE : Registrar los eventos de 1 de cada N peticiones (por defecto 1 = todas).
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final int CAPACITY = 1 << 13;
+    private static final Set<String> PII_FIELDS = Arrays.stream(Patient.class.getDeclaredFields())
+            .filter(f -> !Modifier.isStatic(f.getModifiers()))
+            .map(Field::getName)
+            .filter(name -> !name.equals("patient_id"))
+            .collect(Collectors.toUnmodifiableSet());
+    private static final Pattern PII_JSON = Pattern.compile(
+            "(\"(?:" + String.join("|", PII_FIELDS) + ")\"\\s*:\\s*)(\"(?:[^\"\\\\]|\\\\.)*\"|[^,}\\s]+)");
+
+    private static final Ring RING = new Ring(CAPACITY);
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final LongAdder SUPPRESSED = new LongAdder();
+    private static final AtomicLong WINDOW = new AtomicLong();
+    private static final AtomicLong WINDOW_COUNT = new AtomicLong();
+    private static final AtomicLong REQUESTS = new AtomicLong();
+    private static final ThreadLocal<Boolean> SAMPLED = ThreadLocal.withInitial(() -> true);
+    private static final Object CONSUMER = new Object();
+    private static final long IDLE_NANOS = 1_000_000_000L;
+
+    private static volatile Level level = Level.INFO;
+    private static volatile int rateLimit = 1000;
+    private static volatile int requestSample = 1;
+    private static volatile boolean console = true;
+    private static volatile Writer file;
+    private static volatile boolean idle;
+    private static final Thread WRITER = new Thread(Log::writerLoop, "log-writer");
+
+    static {
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drain, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    /* Aplicar la configuración del servidor (claves LOG_*). */
+    public static void configure(Properties config) {
+        level = Level.valueOf(config.getProperty("LOG_LEVEL", "INFO").trim().toUpperCase());
+        rateLimit = TCPserver.intProperty(config, "LOG_RATE_LIMIT", 1000);
+        requestSample = Math.max(1, TCPserver.intProperty(config, "LOG_REQUEST_SAMPLE", 1));
+        console = Boolean.parseBoolean(config.getProperty("LOG_CONSOLE", "true"));
+        String path = config.getProperty("LOG_FILE");
+        if (path != null && !path.isBlank()) {
+            try {
+                file = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8, true));
+            } catch (IOException e) {
+                warn("No se pudo abrir el archivo de log", "file", path, "error", e.getMessage());
+            }
+        }
+    }
+
+    public static void debug(String message, Object... fields) {
+        log(Level.DEBUG, message, fields);
+    }
+
+    public static void info(String message, Object... fields) {
+        log(Level.INFO, message, fields);
+    }
+
+    public static void warn(String message, Object... fields) {
+        log(Level.WARN, message, fields);
+    }
+
+    public static void error(String message, Object... fields) {
+        log(Level.ERROR, message, fields);
+    }
+
+    public static boolean isEnabled(Level l) {
+        return l.compareTo(level) >= 0;
+    }
+
+    /* Decidir si los eventos por petición del hilo actual se registran (muestreo 1 de cada N). */
+    public static void beginRequest() {
+        SAMPLED.set(requestSample <= 1 || REQUESTS.incrementAndGet() % requestSample == 0);
+    }
+
+    /* Evento por petición: solo se registra si la petición actual quedó en la muestra. */
+    public static void request(Level l, String message, Object... fields) {
+        if (SAMPLED.get()) log(l, message, fields);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Encolar un evento. Es lo único que se ejecuta en el hilo que llama: filtro de nivel,
+     *     límite de tasa y un CAS en el buffer; el formato y la escritura ocurren en "log-writer".
+     *  // Entradas //
+     *     fields : Pares clave, valor (ej: "patient_id", id, "ms", 12).
+     */
+    public static void log(Level l, String message, Object... fields) {
+        if (!isEnabled(l)) return;
+        if (l != Level.ERROR && !allow()) {
+            SUPPRESSED.increment();
+            return;
+        }
+        Event event = new Event(System.currentTimeMillis(), l, Thread.currentThread().getName(), message, fields);
+        if (!RING.offer(event)) {
+            DROPPED.increment();
+        } else if (idle) {
+            LockSupport.unpark(WRITER);
+        }
+    }
+
+    /* Ventana de un segundo con contador atómico (aproximado en el cambio de segundo). */
+    private static boolean allow() {
+        int limit = rateLimit;
+        if (limit <= 0) return true;
+        long second = System.currentTimeMillis() / 1000;
+        long window = WINDOW.get();
+        if (second != window && WINDOW.compareAndSet(window, second)) {
+            WINDOW_COUNT.set(0);
+        }
+        return WINDOW_COUNT.incrementAndGet() <= limit;
+    }
+
+    /* Reemplazar los valores de campos personales dentro de un texto JSON. */
+    static String redact(String text) {
+        if (text == null || text.indexOf('"') < 0) return text;
+        return PII_JSON.matcher(text).replaceAll("$1\"***\"");
+    }
+
+    /*
+     *  // Objetivo //
+     *     Escribir los eventos a medida que llegan sin consumir CPU cuando no hay ninguno.
+     *  // Proceso //
+     *     Si no hay nada pendiente, marca 'idle', vuelve a mirar el buffer (un evento publicado
+     *     antes de marcar no despierta al hilo) y se detiene hasta que log() lo despierte con
+     *     unpark. Se despierta igual cada IDLE_NANOS para informar los eventos descartados o
+     *     suprimidos, que no pasan por el buffer.
+     */
+    private static void writerLoop() {
+        while (true) {
+            if (drain() == 0) {
+                idle = true;
+                if (RING.isEmpty()) LockSupport.parkNanos(IDLE_NANOS);
+                idle = false;
+            }
+        }
+    }
+
+    /* Escribir todos los eventos pendientes. Retorna cuántos se escribieron. */
+    private static int drain() {
+        synchronized (CONSUMER) {
+            int written = 0;
+            Event event;
+            while ((event = RING.poll()) != null) {
+                write(format(event));
+                written++;
+            }
+            long lost = DROPPED.sumThenReset();
+            long limited = SUPPRESSED.sumThenReset();
+            if (lost > 0 || limited > 0) {
+                write(format(new Event(System.currentTimeMillis(), Level.WARN, "log-writer",
+                        "Eventos de log perdidos", new Object[]{"buffer_lleno", lost, "limite_tasa", limited})));
+                written++;
+            }
+            if (written > 0) flush();
+            return written;
+        }
+    }
+
+    private static String format(Event event) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(Instant.ofEpochMilli(event.time())).append(' ')
+                .append(String.format("%-5s", event.level())).append(" [")
+                .append(event.thread()).append("] ")
+                .append(redact(event.message()));
+        Object[] fields = event.fields();
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            String key = String.valueOf(fields[i]);
+            String value = PII_FIELDS.contains(key) ? "***" : redact(String.valueOf(fields[i + 1]));
+            sb.append(' ').append(key).append('=');
+            if (value.isEmpty() || value.indexOf(' ') >= 0) {
+                sb.append('"').append(value.replace("\"", "\\\"")).append('"');
+            } else {
+                sb.append(value);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void write(String line) {
+        if (console) {
+            System.out.println(line);
+        }
+        Writer w = file;
+        if (w != null) {
+            try {
+                w.write(line);
+                w.write('\n');
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void flush() {
+        Writer w = file;
+        if (w != null) {
+            try {
+                w.flush();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private record Event(long time, Level level, String thread, String message, Object[] fields) {
+    }
+
+    /*
+     *  // Objetivo //
+     *     Buffer circular acotado para muchos productores y un consumidor, sin bloqueos.
+     *  // Proceso //
+     *     - offer: reserva la posición 'tail' con un CAS solo si hay lugar (tail - head < capacidad)
+     *       y publica el evento en su casilla.
+     *     - poll: lee la casilla de 'head'; si aún no se publicó (null) no hay nada que leer.
+     *       La vacía antes de avanzar 'head', por lo que un productor nunca pisa una casilla ocupada.
+     */
+    private static final class Ring {
+        private final AtomicReferenceArray<Event> slots;
+        private final int mask;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        boolean offer(Event event) {
+            long t;
+            do {
+                t = tail.get();
+                if (t - head.get() >= slots.length()) return false;
+            } while (!tail.compareAndSet(t, t + 1));
+            slots.set((int) (t & mask), event);
+            return true;
+        }
+
+        /* Sin eventos publicados en 'head' (uno reservado pero aún no publicado cuenta como vacío). */
+        boolean isEmpty() {
+            return slots.get((int) (head.get() & mask)) == null;
+        }
+
+        Event poll() {
+            long h = head.get();
+            int index = (int) (h & mask);
+            Event event = slots.get(index);
+            if (event == null) return null;
+            slots.lazySet(index, null);
+            head.lazySet(h + 1);
+            return event;
+        }
+    }
+}
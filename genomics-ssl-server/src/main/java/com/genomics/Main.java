@@ -2,6 +2,9 @@ package com.genomics;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
 import java.util.Properties;
 
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
@@ -14,6 +17,11 @@ public class Main {
     /*
      *
      *     Configurar el entorno SSL/TLS y arrancar un servidor TCP para recibir conexiones seguras.
+     *  // Argumentos (opcionales) //
+     *     args[0] : Puerto del servidor (si no, SERVER_PORT de la configuración, o 4040).
+     *     args[1] : Puerto del endpoint de métricas (si no, METRICS_PORT).
+     *     Permiten levantar varias instancias en localhost para probar el clúster (ShardRouter);
+     *     cada instancia debe iniciarse con su propia carpeta de datos (-Dgenomics.data=...).
      */
     public static void main(String[] args) {
         Properties p = new Properties();
@@ -21,14 +29,30 @@ public class Main {
         try {
             p.load(com.genomics.common.Main.class.getClassLoader().getResourceAsStream("config.properties"));
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.error("No se pudo leer config.properties", "error", e.getMessage());
+        }
+
+        // Cualquier clave de configuración puede sobrescribirse con -DCLAVE=valor
+        // (ej: -DSERVER_MODE=coordinator -DWORKER_NODES=127.0.0.1:4041,127.0.0.1:4042)
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.matches("[A-Z][A-Z0-9_]*")) p.setProperty(key, System.getProperty(key));
+        }
+
+        // Logs asíncronos (LOG_LEVEL, LOG_FILE, LOG_RATE_LIMIT, LOG_REQUEST_SAMPLE...)
+        Log.configure(p);
+
+        // Una carpeta de datos por nodo: trabajos, snapshot del panel, resultados y estadísticas
+        if (!lockDataRoot()) {
+            Log.error("La carpeta de datos ya la usa otro servidor; inicie cada nodo con su propio -Dgenomics.data",
+                    "path", new File(PatientHandler.DATA_ROOT).getAbsolutePath());
+            System.exit(1);
         }
 
         String certificateRoute = p.getProperty("SSL_CERTIFICATE_ROUTE");
         String certificatePassword = p.getProperty("SSL_PASSWORD");
 
-        System.out.println("Certificado: " + new File(certificateRoute).getAbsolutePath());
-        System.out.println("Existe? " + new File(certificateRoute).exists());
+        Log.info("Certificado", "path", new File(certificateRoute).getAbsolutePath(),
+                "exists", new File(certificateRoute).exists());
 
         System.setProperty("javax.net.ssl.keyStore",certificateRoute);
         System.setProperty("javax.net.ssl.keyStorePassword",certificatePassword);
@@ -36,7 +60,64 @@ public class Main {
         System.setProperty("javax.net.ssl.trustStore", certificateRoute);
         System.setProperty("javax.net.ssl.trustStorePassword", certificatePassword);
         System.setProperty("javax.net.ssl.trustStoreType", "PKCS12");
-        TCPserver server = new TCPserver(4040);
+
+        // Búsqueda SIMD solo si la JVM se inició con --add-modules jdk.incubator.vector
+        Log.info("Kernel de búsqueda de secuencias", "kernel", NucleotideKernel.INSTANCE.name());
+
+        // Panel de enfermedades: se mapea el snapshot si el panel no cambió desde el último arranque
+        try {
+            long t = System.nanoTime();
+            boolean mapped = PanelSnapshot.preload();
+            DiseasePanel panel = DiseasePanel.load();
+            Log.info("Panel de enfermedades cargado", "origen", mapped ? "snapshot" : "archivos FASTA",
+                    "firmas", panel.matchers().size(), "panel_version", panel.version(),
+                    "ms", (System.nanoTime() - t) / 1_000_000);
+        } catch (IOException e) {
+            Log.warn("No se pudo cargar el panel de enfermedades", "error", e.getMessage());
+        }
+
+        // Calentamiento opcional del JIT antes de abrir el puerto (WARMUP_MS)
+        ServerWarmup.run(Long.parseLong(p.getProperty("WARMUP_MS", "0").trim()));
+
+        // Instrumentación: JMX y endpoint HTTP local con histogramas por etapa
+        ServerMetrics.register();
+        int metricsPort = Integer.parseInt(args.length > 1 ? args[1] : p.getProperty("METRICS_PORT", "0"));
+        if (metricsPort > 0) {
+            try {
+                new MetricsEndpoint(metricsPort).start();
+            } catch (IOException e) {
+                Log.warn("No se pudo iniciar el endpoint de métricas", "error", e.getMessage());
+            }
+        }
+
+        int serverPort = Integer.parseInt(args.length > 0 ? args[0] : p.getProperty("SERVER_PORT", "4040"));
+        TCPserver server = new TCPserver(serverPort, p);
         server.start();
     }
+
+    private static FileLock dataLock;
+
+    /*
+     *  // Objetivo //
+     *     Tomar un candado exclusivo sobre DATA_ROOT/node.lock mientras viva el proceso. Dos nodos
+     *     con la misma carpeta compartirían la carpeta jobs/ (al reiniciar, cada uno volvería a
+     *     encolar los trabajos del otro y se ejecutarían dos veces), el snapshot del panel, los
+     *     resultados y las estadísticas de la cohorte.
+     *  // Salidas //
+     *     false si otro proceso ya tiene el candado o no se pudo crear el archivo.
+     */
+    private static boolean lockDataRoot() {
+        File root = new File(PatientHandler.DATA_ROOT);
+        if (!root.exists()) root.mkdirs();
+        try {
+            FileChannel channel = FileChannel.open(new File(root, "node.lock").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            dataLock = channel.tryLock();
+            if (dataLock == null) channel.close();
+            return dataLock != null;
+        } catch (IOException e) {
+            Log.warn("No se pudo bloquear la carpeta de datos", "error", e.getMessage());
+            return false;
+        }
+    }
 }
\ No newline at end of file
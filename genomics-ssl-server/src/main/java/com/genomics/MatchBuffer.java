@@ -0,0 +1,107 @@
+package com.genomics;
+
+import java.util.Arrays;
+
+/*
+ *  // Objetivo //
+ *     Guardar las posiciones donde aparece la firma de una enfermedad sin crear un objeto por
+ *     coincidencia: cada posición ocupa un long en un arreglo que crece al doble cuando se llena.
+ *  // Formato de cada posición //
+ *     bits 63..32 : índice del registro FASTA.
+ *     bits 31..1  : offset (base 0) de la primera base de la coincidencia en el registro.
+ *     bit 0       : hebra, 0 = directa (+), 1 = complementaria reversa (-).
+ *     Así, ordenar el arreglo ordena por registro, offset y hebra.
+ *  // Límite //
+ *     Se conservan las 'cap' posiciones menores en ese orden (las primeras del archivo), sin
+ *     importar el orden en que se agregan: la búsqueda encuentra primero las de la hebra
+ *     directa, y el coordinador recibe las regiones en el orden en que terminan. El arreglo
+ *     crece hasta 2 * cap; al llenarse se ordena y se conserva la mitad menor (trim), y las
+ *     posiciones mayores que la última conservada (bound) se descartan sin guardarlas.
+ *  // Atributos //
+ *     positions : Posiciones guardadas (solo las primeras 'size'; sin ordenar hasta trim()).
+ *     count     : Total de coincidencias encontradas, aunque superen el límite.
+ *     cap       : Máximo de posiciones conservadas; las demás solo se cuentan.
+ *     bound     : Mayor posición conservada tras el último trim() con el buffer lleno.
+ */
+public class MatchBuffer {
+    private long[] positions = new long[8];
+    private int size;
+    private long count;
+    private final int cap;
+    private long bound = Long.MAX_VALUE;
+
+    public MatchBuffer(int cap) {
+        this.cap = cap;
+    }
+
+    public void add(int record, int offset, boolean reverse) {
+        count++;
+        keep(pack(record, offset, reverse));
+    }
+
+    /* Guardar una posición si puede estar entre las 'cap' menores (no cambia el conteo). */
+    private void keep(long position) {
+        if (cap <= 0 || position >= bound) return;
+        if (size == positions.length) positions = Arrays.copyOf(positions, Math.min(size * 2, 2 * cap));
+        positions[size++] = position;
+        if (size == 2 * cap) trim();
+    }
+
+    /* Conservar solo las 'cap' posiciones menores. */
+    private void trim() {
+        if (size <= cap) return;
+        Arrays.sort(positions, 0, size);
+        size = cap;
+        bound = positions[cap - 1];
+    }
+
+    /* Contar coincidencias cuyas posiciones no se conocen (ej: truncadas por un trabajador). */
+    public void addCount(long n) {
+        count += n;
+    }
+
+    /* Agregar las coincidencias de otro buffer (ej: otra región del mismo registro). */
+    public void addAll(MatchBuffer other) {
+        for (int i = 0; i < other.size; i++) {
+            keep(other.positions[i]);
+        }
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public int size() {
+        return Math.min(size, cap);
+    }
+
+    /* true si hubo más coincidencias que posiciones guardadas. */
+    public boolean truncated() {
+        return count > size();
+    }
+
+    /* Copia ordenada (registro, offset, hebra) de las posiciones guardadas. */
+    public long[] sorted() {
+        trim();
+        long[] copy = Arrays.copyOf(positions, size);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    public static long pack(int record, int offset, boolean reverse) {
+        return ((long) record << 32) | ((long) offset << 1) | (reverse ? 1 : 0);
+    }
+
+    public static int record(long position) {
+        return (int) (position >>> 32);
+    }
+
+    public static int offset(long position) {
+        return (int) ((position & 0xFFFFFFFFL) >>> 1);
+    }
+
+    public static boolean reverse(long position) {
+        return (position & 1) != 0;
+    }
+}
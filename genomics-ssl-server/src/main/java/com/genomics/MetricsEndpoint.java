@@ -0,0 +1,42 @@
+package com.genomics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/*
+ *  // Objetivo //
+ *     Exponer las métricas del servidor en un endpoint HTTP local de solo lectura
+ *     (http://127.0.0.1:<puerto>/metrics), sin depender de un profiler ni de JMX.
+ *  // Atributos //
+ *     port : Puerto local donde se escucha. Solo se enlaza a la interfaz loopback.
+ *  // Métodos //
+ *     start() : Crea el HttpServer, registra el contexto "/metrics" y lo inicia en un hilo propio.
+ *  // Excepciones //
+ *     Lanza IOException si no se puede abrir el puerto.
+ */
+public class MetricsEndpoint {
+    private final int port;
+
+    public MetricsEndpoint(int port) {
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", exchange -> {
+            byte[] body = ServerMetrics.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        http.start();
+        Log.info("Métricas disponibles", "url", "http://127.0.0.1:" + port + "/metrics");
+    }
+}
@@ -0,0 +1,53 @@
+package com.genomics;
+
+/*
+ *  // Objetivo //
+ *     Operaciones de bajo nivel sobre bytes de ADN usadas al cargar FASTA y al buscar firmas.
+ *     Hay dos implementaciones con resultados idénticos: VectorKernel (SIMD, Vector API de
+ *     jdk.incubator.vector) y ScalarKernel (un byte por iteración).
+ *  // Selección //
+ *     INSTANCE es VectorKernel si el módulo jdk.incubator.vector está cargado (la JVM se inició
+ *     con --add-modules jdk.incubator.vector) y el hardware tiene vectores de al menos 16 bytes;
+ *     si no, ScalarKernel. La propiedad de sistema "genomics.vector=false" fuerza ScalarKernel.
+ */
+public interface NucleotideKernel {
+
+    NucleotideKernel INSTANCE = select();
+
+    /*
+     *  // Objetivo //
+     *     Copiar src[from, to) en dst a partir de dstPos, descartando saltos de línea y espacios
+     *     (bytes <= ' ') y pasando a mayúsculas las letras a-z.
+     *  // Entradas //
+     *     dst debe tener espacio para al menos (to - from) bytes desde dstPos.
+     *  // Salidas //
+     *     Nueva posición de escritura en dst.
+     */
+    int compact(byte[] src, int from, int to, byte[] dst, int dstPos);
+
+    /*
+     *  // Objetivo //
+     *     Buscar la primera aparición de 'pattern' en 'text' que empiece en [from, to).
+     *     La coincidencia puede terminar después de 'to', pero no después del final de 'text'.
+     *  // Salidas //
+     *     Offset de la coincidencia, o -1 si no hay.
+     */
+    int indexOf(byte[] text, byte[] pattern, int from, int to);
+
+    /* Nombre de la implementación (para mostrarlo al iniciar el servidor). */
+    String name();
+
+    private static NucleotideKernel select() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty("genomics.vector", "true"));
+        if (enabled && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Por reflexión, para no cargar clases del módulo incubator si no está disponible
+                return (NucleotideKernel) Class.forName("com.genomics.VectorKernel")
+                        .getDeclaredMethod("create").invoke(null);
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                // El módulo no se pudo cargar: se usa la versión escalar
+            }
+        }
+        return new ScalarKernel();
+    }
+}
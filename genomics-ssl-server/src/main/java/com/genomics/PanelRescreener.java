@@ -0,0 +1,201 @@
+package com.genomics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/*
+ *  // Objetivo //
+ *     Mantener al día los resultados guardados cuando cambia el panel de enfermedades, sin
+ *     volver a analizar el panel completo de cada paciente.
+ *  // Proceso //
+ *     1. Cada PANEL_CHECK_INTERVAL_MS comprueba el contenido de los FASTA del panel
+ *        (PanelSnapshot.refresh, detecta también ediciones que conservan tamaño y fecha; es la
+ *        única revalidación del panel que usan las peticiones), lee el panel (DiseasePanel) y compara su versión con la del último re-análisis terminado. Los pacientes que fallaron en ese re-análisis (ej: su
+ *        FASTA no estaba disponible) quedan en 'retry' y se reintentan en cada revisión hasta
+ *        que se actualicen, aunque el panel no vuelva a cambiar.
+ *     2. Si cambió, recorre los resultados en JSON (StoredResult) calculados con otra versión:
+ *        - Firmas quitadas: se eliminan del resultado sin leer el genoma.
+ *        - Firmas nuevas o modificadas (huella distinta): se lee el genoma del paciente de a un
+ *          registro y se buscan solo esas firmas (PatientHandler.findMatches).
+ *        - Firmas sin cambios: se conservan los conteos y posiciones guardados.
+ *     3. Reescribe el resultado (texto y JSON) con savePatientResult, con el candado del
+ *        paciente, y actualiza su aporte en CohortStats. Si mientras tanto un análisis en línea
+ *        ya reescribió el resultado, no lo pisa.
+ *     Los resultados anteriores a esta versión (sin JSON) no se pueden actualizar por delta y se
+ *     dejan como están hasta que el paciente se vuelva a analizar.
+ *  // Prioridad //
+ *     Un único hilo de baja prioridad, un paciente por vez. Antes de cada paciente espera
+ *     RESCREEN_PAUSE_MS, y mientras haya más de RESCREEN_MAX_IN_FLIGHT análisis en curso o en
+ *     cola ('load': analysisPool y trabajos asíncronos pendientes) no avanza, para no competir
+ *     por CPU con el tráfico en línea. No cuenta las conexiones abiertas (ServerMetrics.inFlight),
+ *     porque una suscripción ("SUBSCRIBE") puede esperar minutos sin usar CPU.
+ *  // Avance //
+ *     ServerMetrics.rescreenPending/rescreenUpdated (JMX y /metrics) y un evento INFO cada
+ *     RESCREEN_PROGRESS_EVERY pacientes y al terminar.
+ *  // Configuración (config.properties, todas opcionales) //
+ *     PANEL_CHECK_INTERVAL_MS : Cada cuánto revisar el panel; 0 = desactivado (por defecto 60000).
+ *     RESCREEN_PAUSE_MS       : Pausa entre pacientes (por defecto 20).
+ *     RESCREEN_MAX_IN_FLIGHT  : Análisis en curso o en cola a partir de los cuales se detiene (por defecto 2).
+ *     RESCREEN_PROGRESS_EVERY : Pacientes entre eventos de avance (por defecto 100).
+ */
+public class PanelRescreener {
+    private final long checkIntervalMs;
+    private final long pauseMs;
+    private final int maxInFlight;
+    private final int progressEvery;
+    private final IntSupplier load;
+    private final ScheduledExecutorService scheduler;
+    private volatile String screenedVersion;
+    private final Set<File> retry = new HashSet<>();
+
+    public PanelRescreener(Properties config, IntSupplier load) {
+        this.load = load;
+        this.checkIntervalMs = Long.parseLong(config.getProperty("PANEL_CHECK_INTERVAL_MS", "60000").trim());
+        this.pauseMs = Long.parseLong(config.getProperty("RESCREEN_PAUSE_MS", "20").trim());
+        this.maxInFlight = Integer.parseInt(config.getProperty("RESCREEN_MAX_IN_FLIGHT", "2").trim());
+        this.progressEvery = Math.max(1, Integer.parseInt(config.getProperty("RESCREEN_PROGRESS_EVERY", "100").trim()));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "panel-rescreen");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /* Programar la revisión periódica del panel (la primera, al iniciar el servidor). */
+    public void start() {
+        if (checkIntervalMs <= 0) return;
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void check() {
+        try {
+            PanelSnapshot.refresh();
+            DiseasePanel panel = DiseasePanel.load();
+            File[] files;
+            if (panel.version().equals(screenedVersion)) {
+                if (retry.isEmpty()) return;
+                files = retry.toArray(new File[0]);
+            } else {
+                files = PatientHandler.storedResultFiles();
+            }
+            retry.clear();
+            rescreen(panel, files);
+            screenedVersion = panel.version();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.error("Error en el re-análisis del panel", "error", e.getMessage());
+        } finally {
+            ServerMetrics.rescreenPending(0);
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Actualizar los resultados guardados en 'files' que no se calcularon con 'panel'.
+     *  // Excepciones //
+     *     InterruptedException si se detiene el hilo; los errores de un paciente se registran,
+     *     el paciente se agrega a 'retry' y no detienen a los demás.
+     */
+    private void rescreen(DiseasePanel panel, File[] files) throws InterruptedException {
+        int checked = 0, updated = 0, failed = 0;
+        long start = System.nanoTime();
+
+        for (File file : files) {
+            ServerMetrics.rescreenPending(files.length - checked);
+            throttle();
+            try {
+                if (rescreenPatient(file, panel)) {
+                    updated++;
+                    ServerMetrics.rescreenUpdated();
+                }
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                retry.add(file);
+                Log.warn("No se pudo re-analizar el resultado", "file", file.getName(), "error", e.getMessage());
+            }
+            checked++;
+            if (checked % progressEvery == 0) {
+                Log.info("Re-análisis en curso", "panel_version", panel.version(),
+                        "revisados", checked, "total", files.length, "actualizados", updated);
+            }
+        }
+        if (updated > 0 || failed > 0) {
+            Log.info("Re-análisis terminado", "panel_version", panel.version(), "revisados", checked,
+                    "actualizados", updated, "fallidos", failed,
+                    "ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /* Ceder ante el tráfico en línea: pausa fija y espera mientras haya análisis en curso o en cola. */
+    private void throttle() throws InterruptedException {
+        Thread.sleep(pauseMs);
+        while (load.getAsInt() > maxInFlight) {
+            Thread.sleep(Math.max(pauseMs, 10));
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Actualizar el resultado de un paciente analizando solo las firmas que cambiaron.
+     *  // Salidas //
+     *     true si se reescribió el resultado; false si ya estaba al día o fue reemplazado
+     *     mientras tanto por un análisis en línea.
+     *  // Excepciones //
+     *     IOException si no se puede leer el resultado o el genoma, o escribir el resultado.
+     */
+    private boolean rescreenPatient(File file, DiseasePanel panel) throws IOException {
+        StoredResult stored = PatientHandler.readStoredResult(file);
+        if (stored == null || panel.version().equals(stored.getPanel_version())) return false;
+
+        List<DiseasePanel.Matcher> changed = new ArrayList<>();
+        Set<String> kept = new HashSet<>();
+        for (DiseasePanel.Matcher matcher : panel.matchers()) {
+            String disease = matcher.name();
+            if (panel.fingerprints().get(disease).equals(stored.getSignatures().get(disease))) {
+                kept.add(disease);
+            } else {
+                changed.add(matcher);
+            }
+        }
+
+        AnalysisResult result = new AnalysisResult(panel.signatures().keySet(), PatientHandler.MAX_POSITIONS);
+        stored.addTo(result, kept, PatientHandler.MAX_POSITIONS);
+        if (!changed.isEmpty()) {
+            String patientId = stored.getPatient().getPatient_id();
+            try (FastaReader reader = new FastaReader(PatientHandler.patientFile(patientId))) {
+                FastaRecord record;
+                while ((record = reader.next()) != null) {
+                    byte[] dna = record.sequence();
+                    result.add(record.index(), record.name(), PatientHandler.findMatches(dna, record.index(),
+                            0, dna.length, changed, PatientHandler.MAX_POSITIONS));
+                }
+            }
+        }
+
+        synchronized (PatientHandler.resultLock(stored.getPatient().getPatient_id())) {
+            StoredResult current = PatientHandler.readStoredResult(file);
+            if (current == null || !Objects.equals(current.getPanel_version(), stored.getPanel_version())) {
+                return false;
+            }
+            PatientHandler.savePatientResult(stored.getPatient(), result, panel);
+            CohortStats.record(stored.getPatient(), result, false);
+        }
+        Log.debug("Resultado actualizado", "patient_id", stored.getPatient().getPatient_id(),
+                "panel_version", panel.version(), "firmas_analizadas", changed.size(),
+                "firmas_quitadas", stored.getSignatures().keySet().stream()
+                        .filter(d -> !panel.fingerprints().containsKey(d)).count());
+        return true;
+    }
+}
@@ -0,0 +1,239 @@
+package com.genomics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ *  // Objetivo //
+ *     Evitar leer y preparar todo el panel de enfermedades en cada petición y en cada arranque.
+ *     El panel preparado (DiseasePanel con sus firmas compiladas) se guarda en
+ *     DATA_ROOT/panel.snapshot y se mantiene en memoria ('cached'); las peticiones lo toman de
+ *     ahí sin tocar el disco.
+ *  // Validez //
+ *     - stamp: SHA-256 de "nombre:tamaño:fecha de modificación" de cada .fasta de
+ *       DISEASES_FOLDER, ordenados por nombre. Solo requiere listar la carpeta; basta para
+ *       aceptar el snapshot al arrancar sin leer los FASTA.
+ *     - checksum: SHA-256 de "nombre:SHA-256 del contenido" de cada .fasta, ordenados por
+ *       nombre. Requiere leer los archivos, así que solo se calcula en refresh() (hilo de
+ *       PanelRescreener, cada PANEL_CHECK_INTERVAL_MS) y al reconstruir el snapshot. Detecta
+ *       también una edición que conserva el tamaño y la fecha (o una copia con "cp -p").
+ *     Si el checksum no cambió (ej: solo se tocó la fecha) se conserva el panel en memoria; si
+ *     cambió, el panel se vuelve a leer de los FASTA y se reescribe el snapshot. Con
+ *     PANEL_CHECK_INTERVAL_MS=0 el panel no se revalida hasta reiniciar el servidor.
+ *  // Formato del snapshot (big endian) //
+ *     int    MAGIC ("GPNL"), int FORMAT
+ *     texto  stamp, texto checksum, texto version
+ *     int    cantidad de firmas, y por cada una:
+ *            texto nombre, texto huella, bytes hebra directa, bytes complemento reverso (-1 = palindrómica)
+ *     Un texto o un arreglo de bytes es un int con el largo seguido de los bytes (UTF-8 / ASCII).
+ *     Al arrancar se mapea en memoria (FileChannel.map) y se lee sin volver a procesar los FASTA.
+ *     Un snapshot con otro FORMAT, otro stamp o dañado se ignora y se reconstruye.
+ *  // Concurrencia //
+ *     current() y refresh() pueden llamarse desde cualquier hilo; la carga y la reconstrucción
+ *     se hacen con el candado de la clase, y current() solo lee el campo volátil.
+ */
+final class PanelSnapshot {
+    private static final int MAGIC = 0x47504E4C;
+    private static final int FORMAT = 3;
+    private static final File SNAPSHOT_FILE = new File(PatientHandler.DATA_ROOT + "panel.snapshot");
+
+    private static volatile Cached cached;
+
+    private record Cached(String checksum, DiseasePanel panel, boolean mapped) {
+    }
+
+    private PanelSnapshot() {
+    }
+
+    /* Panel en memoria; solo se lee del disco la primera vez (normalmente en preload()). */
+    static DiseasePanel current() throws IOException {
+        Cached c = cached;
+        if (c != null) return c.panel();
+        synchronized (PanelSnapshot.class) {
+            if (cached == null) cached = load();
+            return cached.panel();
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Comprobar el contenido de los FASTA del panel (lo llama PanelRescreener en cada
+     *     revisión, fuera de las peticiones) y, si cambió, volver a leerlo y reescribir el snapshot.
+     *  // Excepciones //
+     *     IOException si no se puede leer algún FASTA del panel.
+     */
+    static void refresh() throws IOException {
+        String checksum = checksum();
+        Cached c = cached;
+        if (c != null && checksum.equals(c.checksum())) return;
+        synchronized (PanelSnapshot.class) {
+            c = cached;
+            if (c != null && checksum.equals(c.checksum())) return;
+            if (c != null) {
+                Log.info("El panel de enfermedades cambió, se vuelve a leer", "folder", PatientHandler.DISEASES_FOLDER);
+            }
+            cached = rebuild();
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Cargar el panel al iniciar el servidor, antes de abrir el puerto.
+     *  // Salidas //
+     *     true si se usó el snapshot existente; false si hubo que leer los FASTA.
+     */
+    static boolean preload() throws IOException {
+        current();
+        return cached.mapped();
+    }
+
+    /* Primera carga: el snapshot si el stamp coincide; si no, los FASTA. */
+    private static Cached load() throws IOException {
+        Cached c = map(stamp());
+        return c != null ? c : rebuild();
+    }
+
+    /* Leer los FASTA, calcular su checksum y guardar un snapshot nuevo. */
+    private static Cached rebuild() throws IOException {
+        String stamp = stamp();
+        String checksum = checksum();
+        DiseasePanel panel = DiseasePanel.read();
+        write(stamp, checksum, panel);
+        return new Cached(checksum, panel, false);
+    }
+
+    private static String stamp() {
+        StringBuilder sb = new StringBuilder();
+        for (File f : diseaseFiles()) {
+            sb.append(f.getName()).append(':').append(f.length()).append(':').append(f.lastModified()).append('\n');
+        }
+        return DiseasePanel.sha256(sb.toString());
+    }
+
+    private static String checksum() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (File f : diseaseFiles()) {
+            sb.append(f.getName()).append(':').append(sha256(Files.readAllBytes(f.toPath()))).append('\n');
+        }
+        return DiseasePanel.sha256(sb.toString());
+    }
+
+    private static File[] diseaseFiles() {
+        File[] files = new File(PatientHandler.DISEASES_FOLDER).listFiles((dir, name) -> name.endsWith(".fasta"));
+        if (files == null) files = new File[0];
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return files;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /* Leer el snapshot mapeado en memoria; null si no existe, es de otro stamp o está dañado. */
+    private static Cached map(String stamp) {
+        if (!SNAPSHOT_FILE.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(SNAPSHOT_FILE.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) return null;
+            if (!stamp.equals(readText(buffer))) return null;
+            String checksum = readText(buffer);
+            String version = readText(buffer);
+
+            int count = buffer.getInt();
+            Map<String, String> signatures = new LinkedHashMap<>();
+            Map<String, String> fingerprints = new LinkedHashMap<>();
+            List<DiseasePanel.Matcher> matchers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = readText(buffer);
+                fingerprints.put(name, readText(buffer));
+                byte[] forward = readBytes(buffer);
+                byte[] reverse = readBytes(buffer);
+                signatures.put(name, new String(forward, StandardCharsets.US_ASCII));
+                matchers.add(new DiseasePanel.Matcher(name, forward, reverse));
+            }
+            return new Cached(checksum, new DiseasePanel(Collections.unmodifiableMap(signatures),
+                    Collections.unmodifiableMap(fingerprints), version, Collections.unmodifiableList(matchers)), true);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.warn("Snapshot del panel inválido, se reconstruye", "file", SNAPSHOT_FILE.getPath(), "error", e.toString());
+            return null;
+        }
+    }
+
+    /* Escribir el snapshot en un archivo temporal y renombrarlo. Si falla, solo se pierde el atajo. */
+    private static void write(String stamp, String checksum, DiseasePanel panel) {
+        Path tmp = new File(SNAPSHOT_FILE.getPath() + ".tmp").toPath();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp.toFile())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                writeText(out, stamp);
+                writeText(out, checksum);
+                writeText(out, panel.version());
+                out.writeInt(panel.matchers().size());
+                for (DiseasePanel.Matcher matcher : panel.matchers()) {
+                    writeText(out, matcher.name());
+                    writeText(out, panel.fingerprints().get(matcher.name()));
+                    writeBytes(out, matcher.forward());
+                    writeBytes(out, matcher.reverse());
+                }
+            }
+            Files.move(tmp, SNAPSHOT_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn("No se pudo guardar el snapshot del panel", "file", SNAPSHOT_FILE.getPath(), "error", e.getMessage());
+        }
+    }
+
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        writeBytes(out, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(ByteBuffer buffer) {
+        byte[] bytes = readBytes(buffer);
+        if (bytes == null) throw new IllegalArgumentException("texto nulo en el snapshot");
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        if (length > buffer.remaining()) throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
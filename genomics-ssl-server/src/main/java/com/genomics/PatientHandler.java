@@ -1,10 +1,22 @@
 package com.genomics;
 
 import com.genomics.common.Patient;
+import com.google.gson.Gson;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class PatientHandler {
 
@@ -16,14 +28,65 @@ public class PatientHandler {
      *     DISEASES_FOLDER : Carpeta donde se guardan los archivos relacionados con enfermedades.
      *     RESULTS_FOLDER  : Carpeta donde se almacenan los resultados generados para los pacientes.
      *  // Entradas //
-     *     Ninguna, son constantes de ruta utilizadas internamente.
+     *     Propiedad de sistema "genomics.data" (opcional): carpeta raíz de datos, por defecto "data/".
+     *     Permite apuntar el servidor (o los benchmarks) a otro conjunto de datos.
      *  // Salidas //
      *     Ninguna, pero permiten que otras clases y métodos accedan a las rutas de manera consistente.
      */
 
-    private static final String ADN_FOLDER = "data/adn-genomics/";
-    private static final String DISEASES_FOLDER = "data/diseases-genomics/";
-    private static final String RESULTS_FOLDER = "data/patients_results/";
+    static final String DATA_ROOT = System.getProperty("genomics.data", "data/");
+    private static final String ADN_FOLDER = DATA_ROOT + "adn-genomics/";
+    static final String DISEASES_FOLDER = DATA_ROOT + "diseases-genomics/";
+    private static final String RESULTS_FOLDER = DATA_ROOT + "patients_results/";
+
+    /*
+     *  // Objetivo //
+     *     Hilos compartidos para analizar registros FASTA (cromosomas) en paralelo.
+     *  // Entradas //
+     *     Propiedad de sistema "genomics.recordThreads" (opcional), por defecto el número de procesadores.
+     */
+    private static final int RECORD_THREADS = Integer.getInteger("genomics.recordThreads",
+            Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService RECORD_POOL = Executors.newFixedThreadPool(RECORD_THREADS, r -> {
+        Thread t = new Thread(r, "fasta-record");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /*
+     *  // Objetivo //
+     *     Límite de posiciones guardadas por enfermedad y paciente. Las coincidencias que lo
+     *     superan se cuentan pero no se guardan, para que una firma muy repetida no llene la memoria.
+     *  // Entradas //
+     *     Propiedad de sistema "genomics.maxPositions" (opcional), por defecto 1000.
+     */
+    static final int MAX_POSITIONS = Integer.getInteger("genomics.maxPositions", 1000);
+
+    /*
+     *  // Objetivo //
+     *     Buscar también el complemento reverso de cada firma (hebra -). Detecta enfermedades que
+     *     la búsqueda original (solo hebra directa, String.contains) no detectaba.
+     *  // Entradas //
+     *     Propiedad de sistema "genomics.reverseStrand" (opcional), por defecto true; false vuelve
+     *     a la búsqueda solo en la hebra directa. Cambiarla no actualiza los resultados guardados:
+     *     hay que volver a analizar a los pacientes.
+     */
+    static final boolean REVERSE_STRAND = Boolean.parseBoolean(System.getProperty("genomics.reverseStrand", "true"));
+
+    private static final NucleotideKernel KERNEL = NucleotideKernel.INSTANCE;
+
+    private static final Gson gson = new Gson();
+
+    /*
+     *  // Objetivo //
+     *     Candados por paciente (repartidos por hash) para que el análisis en línea y el
+     *     re-análisis de fondo (PanelRescreener) no escriban el mismo resultado a la vez.
+     */
+    private static final Object[] RESULT_LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < RESULT_LOCKS.length; i++) RESULT_LOCKS[i] = new Object();
+    }
 
 
     /*
@@ -32,75 +95,302 @@ public class PatientHandler {
      *  // Entradas //
      *     patient : Objeto Patient que contiene la información del paciente a procesar.
      *  // Proceso //
-     *     1. Construye la ruta del archivo FASTA del paciente y lo lee.
-     *     2. Lista todos los archivos FASTA de enfermedades en la carpeta correspondiente.
-     *     3. Para cada archivo de enfermedad:
-     *        a) Lee la secuencia de ADN de la enfermedad.
-     *        b) Compara si la secuencia del paciente contiene la secuencia de la enfermedad.
-     *        c) Si coincide, agrega el nombre de la enfermedad a la lista de detectadas.
-     *     4. Guarda los resultados del paciente en un archivo en la carpeta de resultados.
-     *     5. Maneja excepciones de entrada/salida mostrando un mensaje en consola.
+     *     1. Obtiene el panel de enfermedades ya preparado (DiseasePanel.load, en caché).
+     *     2. Lee el FASTA del paciente de a un registro (cromosoma) por vez con FastaReader.
+     *     3. Cada registro se compara en RECORD_POOL (findMatches), en paralelo con los demás
+     *        registros y con la lectura del siguiente. Como máximo RECORD_THREADS registros
+     *        están en memoria a la vez.
+     *     4. Cada registro es una secuencia independiente: una firma nunca se busca a través
+     *        del límite entre dos registros.
+     *     5. Guarda los resultados del paciente (texto y JSON con la versión del panel usado)
+     *        y los suma a las estadísticas de la cohorte (CohortStats).
+     *     6. Registra en ServerMetrics el tiempo de lectura FASTA (suma de las lecturas de
+     *        registros), el de comparación (desde el primer registro hasta el último) y el de escritura.
      *  // Salidas //
-     *     Retorna una lista de nombres de enfermedades detectadas en el paciente.
+     *     Retorna un AnalysisResult con las enfermedades detectadas, sus conteos y sus posiciones
+     *     (registro, offset y hebra).
+     *  // Excepciones //
+     *     UncheckedIOException si el FASTA del paciente no existe en este nodo o no se puede leer,
+     *     o si falla la escritura del resultado. Nunca se devuelve un resultado vacío en su lugar:
+     *     sería un falso negativo ("Ninguna").
      */
 
-    public static List<String> processPatient(Patient patient) {
-        List<String> detectedDiseases = new ArrayList<>();
-
+    public static AnalysisResult processPatient(Patient patient) {
         try {
-            // Leer archivo FASTA del paciente
-            String patientFile = ADN_FOLDER + "patient" + patient.getPatient_id() + ".fasta";
-            String patientDNA = readFastaFile(patientFile);
-
             // Leer todos los archivos de enfermedades
-            File diseasesDir = new File(DISEASES_FOLDER);
-            File[] diseaseFiles = diseasesDir.listFiles((dir, name) -> name.endsWith(".fasta"));
+            long t = System.nanoTime();
+            DiseasePanel panel = DiseasePanel.load();
+            long loadNanos = System.nanoTime() - t;
+            AnalysisResult result = new AnalysisResult(panel.signatures().keySet(), MAX_POSITIONS);
+
+            // Leer y analizar el FASTA del paciente registro por registro
+            t = System.nanoTime();
+            long readNanos = scanRecords(patientFile(patient.getPatient_id()), panel.matchers(), result);
+            ServerMetrics.FASTA_LOAD.record(loadNanos + readNanos);
+            ServerMetrics.MATCHING.record(System.nanoTime() - t - readNanos);
+
+            // Guardar los resultados del análisis de enfermedades de un paciente y manejar posibles errores
+            t = System.nanoTime();
+            savePatientResult(patient, result, panel);
+            ServerMetrics.RESULT_WRITE.recordSince(t);
+            CohortStats.record(patient, result, true);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            if (diseaseFiles != null) {
-                for (File diseaseFile : diseaseFiles) {
-                    String diseaseDNA = readFastaFile(diseaseFile.getPath());
-                    String diseaseName = diseaseFile.getName().replace(".fasta", "");
+    /*
+     *  // Objetivo //
+     *     Recorrer los registros de un FASTA y compararlos en paralelo contra el panel.
+     *  // Entradas //
+     *     path     : Ruta del FASTA del paciente.
+     *     diseases : Firmas del panel preparadas para la búsqueda (DiseasePanel.matchers).
+     *     result   : Resultado donde se agregan las coincidencias de cada registro.
+     *  // Salidas //
+     *     Tiempo en nanosegundos dedicado a leer registros del archivo.
+     *  // Excepciones //
+     *     Lanza IOException si falla la lectura o la comparación de algún registro.
+     */
+    private static long scanRecords(String path, List<DiseasePanel.Matcher> diseases, AnalysisResult result) throws IOException {
+        Semaphore inMemory = new Semaphore(RECORD_THREADS);
+        List<Future<?>> pending = new ArrayList<>();
+        long readNanos = 0;
 
-                    // Buscar si el ADN del paciente contiene la secuencia de la enfermedad
-                    if (patientDNA.contains(diseaseDNA)) {
-                        detectedDiseases.add(diseaseName);
+        try (FastaReader reader = new FastaReader(path)) {
+            while (true) {
+                inMemory.acquire();
+                long t = System.nanoTime();
+                FastaRecord record = reader.next();
+                readNanos += System.nanoTime() - t;
+                if (record == null) {
+                    inMemory.release();
+                    break;
+                }
+                pending.add(RECORD_POOL.submit(() -> {
+                    try {
+                        byte[] dna = record.sequence();
+                        result.add(record.index(), record.name(),
+                                findMatches(dna, record.index(), 0, dna.length, diseases, MAX_POSITIONS));
+                    } finally {
+                        inMemory.release();
                     }
+                }));
+            }
+            for (Future<?> f : pending) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Análisis interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            for (Future<?> f : pending) f.cancel(true);
+        }
+        return readNanos;
+    }
+
+    /* Ruta del archivo FASTA de un paciente: ADN_FOLDER/patient<ID>.fasta */
+    static String patientFile(String patientId) {
+        return ADN_FOLDER + "patient" + patientId + ".fasta";
+    }
+
+    /* true si el FASTA del paciente está en la carpeta de datos de este nodo. */
+    static boolean hasGenome(String patientId) {
+        return patientId != null && new File(patientFile(patientId)).isFile();
+    }
+
+    /*
+     *  // Objetivo //
+     *     Analizar solo una región de un registro del genoma de un paciente (mensaje "SCAN_REGION"
+     *     enviado por ScatterGatherCoordinator a un servidor trabajador).
+     *  // Entradas //
+     *     patientId : ID del paciente (su FASTA debe existir en la carpeta de datos del trabajador).
+     *     record    : Índice del registro FASTA (0 = primero).
+     *     start     : Posición inicial de la región dentro del registro (incluida).
+     *     end       : Posición final de la región (excluida). Se analizan además las
+     *                 (firma más larga - 1) bases siguientes del mismo registro para no perder
+     *                 coincidencias que empiezan dentro de la región y terminan en la siguiente.
+     *                 Las que empiezan en esas bases extra pertenecen a la región siguiente y
+     *                 no se reportan, para no contarlas dos veces.
+     *     cap       : Máximo de posiciones guardadas por enfermedad.
+     *  // Proceso //
+     *     Con el índice del FASTA (FastaIndex, construido una vez por archivo) lee del disco solo
+     *     las bases [start, end + firma más larga - 1) del registro, sin recorrer los anteriores.
+     *  // Salidas //
+     *     AnalysisResult con las coincidencias que empiezan en la región (offsets relativos al
+     *     registro, no a la región). No guarda archivo de resultados.
+     *  // Excepciones //
+     *     Lanza IOException si ocurre un error al leer los archivos o el registro no existe.
+     */
+    static AnalysisResult scanRegion(String patientId, int record, int start, int end, int cap) throws IOException {
+        long t = System.nanoTime();
+        FastaIndex index = FastaIndex.of(patientFile(patientId));
+        if (record < 0 || record >= index.records().size()) {
+            throw new IOException("El paciente " + patientId + " no tiene el registro " + record);
+        }
+        FastaIndex.Entry entry = index.records().get(record);
+        DiseasePanel panel = DiseasePanel.load();
+        int longest = panel.matchers().stream().mapToInt(m -> m.forward().length).max().orElse(1);
+
+        int from = Math.max(0, Math.min(start, entry.length()));
+        int to = Math.max(from, Math.min(entry.length(), end));
+        int windowEnd = (int) Math.min(entry.length(), (long) to + Math.max(0, longest - 1));
+        byte[] window = index.read(record, from, windowEnd);
+        ServerMetrics.FASTA_LOAD.recordSince(t);
+
+        t = System.nanoTime();
+        AnalysisResult result = new AnalysisResult(panel.signatures().keySet(), cap);
+        result.add(record, entry.name(), findMatches(window, record, from, 0, to - from, panel.matchers(), cap));
+        ServerMetrics.MATCHING.recordSince(t);
+        return result;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Leer todas las secuencias de enfermedades de DISEASES_FOLDER.
+     *  // Salidas //
+     *     Mapa ordenado nombre de enfermedad (archivo sin ".fasta") -> secuencia de ADN.
+     *  // Excepciones //
+     *     Lanza IOException si ocurre un error al leer algún archivo.
+     */
+    static Map<String, String> readDiseaseFiles() throws IOException {
+        Map<String, String> diseases = new LinkedHashMap<>();
+        File diseasesDir = new File(DISEASES_FOLDER);
+        File[] diseaseFiles = diseasesDir.listFiles((dir, name) -> name.endsWith(".fasta"));
+
+        if (diseaseFiles != null) {
+            for (File diseaseFile : diseaseFiles) {
+                String diseaseName = diseaseFile.getName().replace(".fasta", "");
+                diseases.put(diseaseName, readFastaFile(diseaseFile.getPath()));
+            }
+        }
+        return diseases;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Encontrar todas las coincidencias de cada enfermedad del panel en una secuencia del
+     *     paciente, en ambas hebras, en una sola pasada por firma y hebra.
+     *  // Entradas //
+     *     patientDNA : Bases del registro (ASCII en mayúsculas, ver FastaReader).
+     *     record     : Índice del registro (se guarda en cada posición).
+     *     from, to   : Solo se reportan coincidencias que empiezan en [from, to); pueden terminar
+     *                  después de 'to' (dentro de la secuencia).
+     *     diseases   : Firmas preparadas (DiseasePanel.matchers).
+     *     cap        : Máximo de posiciones guardadas por enfermedad.
+     *  // Proceso //
+     *     1. Hebra directa: busca la firma con NucleotideKernel.indexOf (SIMD si está disponible),
+     *        avanzando una base tras cada coincidencia (las solapadas también se cuentan).
+     *     2. Hebra reversa (si REVERSE_STRAND): busca el complemento reverso de la firma en la misma
+     *        secuencia; el offset es el de la primera base en la hebra directa. Si la firma es palindrómica
+     *        (igual a su complemento reverso) no se busca de nuevo, para no duplicar posiciones.
+     *     3. Antes de cada firma comprueba si el hilo fue interrumpido (análisis cancelado por
+     *        TCPserver al vencer el plazo) y, si es así, deja de buscar.
+     *  // Salidas //
+     *     Mapa nombre de enfermedad -> MatchBuffer con sus posiciones y su conteo total.
+     *  // Excepciones //
+     *     CancellationException si el hilo fue interrumpido.
+     */
+    static Map<String, MatchBuffer> findMatches(byte[] patientDNA, int record, int from, int to,
+                                                List<DiseasePanel.Matcher> diseases, int cap) {
+        return findMatches(patientDNA, record, 0, from, to, diseases, cap);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Igual que la anterior cuando patientDNA es solo un tramo del registro (scanRegion):
+     *     'base' es la posición en el registro de patientDNA[0] y se suma a cada offset guardado.
+     */
+    static Map<String, MatchBuffer> findMatches(byte[] patientDNA, int record, int base, int from, int to,
+                                                List<DiseasePanel.Matcher> diseases, int cap) {
+        Map<String, MatchBuffer> matches = match(patientDNA, record, base, from, to, diseases, cap);
+        long scanned = 0;
+        for (DiseasePanel.Matcher disease : diseases) {
+            if (disease.forward().length > 0) scanned += (REVERSE_STRAND && disease.reverse() != null ? 2L : 1L) * (to - from);
+        }
+        ServerMetrics.bytesScanned(scanned);
+        return matches;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Igual que findMatches, sin sumar los bytes a bytes_scanned_total. Lo usa ServerWarmup,
+     *     cuyo genoma sintético no es trabajo real del servidor.
+     */
+    static Map<String, MatchBuffer> match(byte[] patientDNA, int record, int base, int from, int to,
+                                          List<DiseasePanel.Matcher> diseases, int cap) {
+        Map<String, MatchBuffer> matches = new LinkedHashMap<>();
+        for (DiseasePanel.Matcher disease : diseases) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Análisis cancelado");
+            MatchBuffer buffer = new MatchBuffer(cap);
+            if (disease.forward().length > 0) {
+                scanStrand(patientDNA, disease.forward(), record, base, from, to, false, buffer);
+                if (REVERSE_STRAND && disease.reverse() != null) {
+                    scanStrand(patientDNA, disease.reverse(), record, base, from, to, true, buffer);
                 }
             }
+            matches.put(disease.name(), buffer);
+        }
+        return matches;
+    }
 
-            // Guardar los resultados del análisis de enfermedades de un paciente y manejar posibles errores
-            savePatientResult(patient, detectedDiseases);
+    /* Igual que la anterior, a partir de un mapa nombre de enfermedad -> secuencia de ADN. */
+    static Map<String, MatchBuffer> findMatches(byte[] patientDNA, int record, int from, int to,
+                                                Map<String, String> diseases, int cap) {
+        return findMatches(patientDNA, record, from, to, DiseasePanel.compile(diseases), cap);
+    }
 
-        } catch (IOException e) {
-            System.out.println("Error procesando paciente: " + e.getMessage());
+    private static void scanStrand(byte[] dna, byte[] pattern, int record, int base, int from, int to,
+                                   boolean reverse, MatchBuffer buffer) {
+        int pos = KERNEL.indexOf(dna, pattern, from, to);
+        while (pos >= 0) {
+            buffer.add(record, base + pos, reverse);
+            pos = KERNEL.indexOf(dna, pattern, pos + 1, to);
         }
+    }
 
-        return detectedDiseases;
+    /* Complemento reverso de una secuencia (A<->T, C<->G; otras bases, como N, no cambian). */
+    static String reverseComplement(String sequence) {
+        StringBuilder sb = new StringBuilder(sequence.length());
+        for (int i = sequence.length() - 1; i >= 0; i--) {
+            char c = sequence.charAt(i);
+            sb.append(switch (c) {
+                case 'A' -> 'T';
+                case 'T' -> 'A';
+                case 'C' -> 'G';
+                case 'G' -> 'C';
+                case 'a' -> 't';
+                case 't' -> 'a';
+                case 'c' -> 'g';
+                case 'g' -> 'c';
+                default -> c;
+            });
+        }
+        return sb.toString();
     }
 
     /*
      *  // Objetivo //
      *     Leer un archivo FASTA y devolver la secuencia de ADN ignorando las líneas de encabezado.
+     *     Se usa para las firmas de enfermedades (un solo registro por archivo); los genomas de
+     *     pacientes, que pueden tener varios registros, se leen con FastaReader.
      *  // Entradas //
      *     path : Ruta del archivo FASTA a leer.
      *  // Proceso //
-     *     1. Abre el archivo con BufferedReader.
-     *     2. Recorre cada línea del archivo.
-     *     3. Ignora las líneas que comienzan con ">" (encabezados FASTA).
-     *     4. Agrega al StringBuilder las líneas de secuencia, eliminando espacios en blanco.
+     *     1. Recorre los registros del archivo con FastaReader (ignora los encabezados, descarta
+     *        saltos de línea y espacios y pasa las bases a mayúsculas).
+     *     2. Concatena las secuencias de todos los registros.
      *  // Salidas //
      *     Retorna un String que contiene la secuencia completa de ADN del archivo FASTA.
      *  // Excepciones //
      *     Lanza IOException si ocurre un error al leer el archivo.
      */
-    private static String readFastaFile(String path) throws IOException {
+    static String readFastaFile(String path) throws IOException {
         StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (!line.startsWith(">")) {
-                    sb.append(line.trim());
-                }
+        try (FastaReader reader = new FastaReader(path)) {
+            FastaRecord record;
+            while ((record = reader.next()) != null) {
+                sb.append(new String(record.sequence(), StandardCharsets.US_ASCII));
             }
         }
         return sb.toString();
@@ -112,29 +402,82 @@ public class PatientHandler {
      *     1. Verifica si la carpeta de resultados existe; si no, la crea.
      *     2. Construye la ruta del archivo de resultados con el formato "patient_<ID>_results.txt".
      *     3. Abre un BufferedWriter para escribir en el archivo.
-     *     4. Escribe la información básica del paciente y las enfermedades detectadas.
+     *     4. Escribe la información básica del paciente, la versión del panel y las enfermedades
+     *        detectadas, cada una con su conteo y los registros FASTA donde se encontró
+     *        (AnalysisResult.describe).
      *     5. Si no se detectaron enfermedades, indica "Ninguna".
+     *     6. Lista las posiciones de cada enfermedad como "registro:offset hebra" (offset en base 0),
+     *        ordenadas por registro y offset. Si hubo más de MAX_POSITIONS solo se listan las
+     *        MAX_POSITIONS primeras en ese orden (MatchBuffer conserva las menores).
+     *     7. Escribe "patient_<ID>_results.json" (StoredResult) con las huellas de las firmas usadas,
+     *        para que PanelRescreener pueda actualizarlo si cambia el panel. Se escribe en un
+     *        archivo temporal y se renombra, para no dejar nunca un JSON a medias.
+     *     Todo ocurre con el candado del paciente (resultLock).
      *  // Salidas //
-     *     Ninguna, pero genera un archivo de texto con los resultados del paciente.
+     *     Ninguna, pero genera los archivos de resultados del paciente.
      *  // Excepciones //
-     *     Lanza IOException si ocurre un error al crear o escribir el archivo.
+     *     Lanza IOException si ocurre un error al crear o escribir los archivos.
      */
-    private static void savePatientResult(Patient patient, List<String> diseases) throws IOException {
+    static void savePatientResult(Patient patient, AnalysisResult result, DiseasePanel panel) throws IOException {
         File dir = new File(RESULTS_FOLDER);
         if (!dir.exists()) dir.mkdirs();
 
-        String resultFile = RESULTS_FOLDER + "patient_" + patient.getPatient_id() + "_results.txt";
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(resultFile))) {
-            bw.write("Paciente ID: " + patient.getPatient_id() + "\n");
-            bw.write("Nombre: " + patient.getFull_name() + "\n");
-            bw.write("Documento: " + patient.getDocument_id() + "\n");
-            bw.write("Edad: " + patient.getAge() + "\n");
-            bw.write("Archivo FASTA: " + patient.getClinical_notes() + "\n");
-            if (diseases.isEmpty()) {
-                bw.write("Enfermedades detectadas: Ninguna\n");
-            } else {
-                bw.write("Enfermedades detectadas: " + String.join(", ", diseases) + "\n");
+        String resultFile = RESULTS_FOLDER + resultFileName(patient.getPatient_id());
+        synchronized (resultLock(patient.getPatient_id())) {
+            try (BufferedWriter bw = new BufferedWriter(new FileWriter(resultFile))) {
+                bw.write("Paciente ID: " + patient.getPatient_id() + "\n");
+                bw.write("Nombre: " + patient.getFull_name() + "\n");
+                bw.write("Documento: " + patient.getDocument_id() + "\n");
+                bw.write("Edad: " + patient.getAge() + "\n");
+                bw.write("Archivo FASTA: " + patient.getClinical_notes() + "\n");
+                bw.write("Versión del panel: " + panel.version() + "\n");
+                bw.write("Enfermedades detectadas: " + result.describe() + "\n");
+                for (Map.Entry<String, MatchBuffer> entry : result.getMatches().entrySet()) {
+                    MatchBuffer matches = entry.getValue();
+                    bw.write("Posiciones " + entry.getKey() + " (" + matches.count() + " coincidencias"
+                            + (matches.truncated() ? ", se muestran " + matches.size() : "") + "):\n");
+                    for (long position : matches.sorted()) {
+                        bw.write("  " + result.recordName(MatchBuffer.record(position)) + ":" + MatchBuffer.offset(position)
+                                + " " + (MatchBuffer.reverse(position) ? "-" : "+") + "\n");
+                    }
+                }
             }
+
+            File stored = storedResultFile(patient.getPatient_id());
+            File tmp = new File(stored.getPath() + ".tmp");
+            try (FileWriter writer = new FileWriter(tmp)) {
+                gson.toJson(StoredResult.of(patient, result, panel), writer);
+            }
+            Files.move(tmp.toPath(), stored.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /* Candado compartido por todas las escrituras de resultados de un paciente. */
+    static Object resultLock(String patientId) {
+        return RESULT_LOCKS[Math.floorMod(patientId.hashCode(), RESULT_LOCKS.length)];
+    }
+
+    /* Nombre del resultado en texto de un paciente dentro de RESULTS_FOLDER: patient_<ID>_results.txt */
+    static String resultFileName(String patientId) {
+        return "patient_" + patientId + "_results.txt";
+    }
+
+    /* Ruta del resultado en JSON de un paciente: RESULTS_FOLDER/patient_<ID>_results.json */
+    static File storedResultFile(String patientId) {
+        return new File(RESULTS_FOLDER + "patient_" + patientId + "_results.json");
+    }
+
+    /* Resultados en JSON guardados hasta ahora (vacío si la carpeta no existe). */
+    static File[] storedResultFiles() {
+        File[] files = new File(RESULTS_FOLDER).listFiles((dir, name) -> name.endsWith("_results.json"));
+        return files != null ? files : new File[0];
+    }
+
+    /* Leer un resultado en JSON; null si el archivo no existe. */
+    static StoredResult readStoredResult(File file) throws IOException {
+        if (!file.exists()) return null;
+        try (FileReader reader = new FileReader(file)) {
+            return gson.fromJson(reader, StoredResult.class);
         }
     }
 }
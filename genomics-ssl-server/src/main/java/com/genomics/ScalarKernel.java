@@ -0,0 +1,39 @@
+package com.genomics;
+
+import java.util.Arrays;
+
+/*
+ *  // Objetivo //
+ *     Implementación escalar de NucleotideKernel: referencia para VectorKernel y respaldo
+ *     cuando la Vector API no está disponible.
+ */
+class ScalarKernel implements NucleotideKernel {
+
+    @Override
+    public int compact(byte[] src, int from, int to, byte[] dst, int dstPos) {
+        for (int i = from; i < to; i++) {
+            byte b = src[i];
+            if (b > ' ') {
+                dst[dstPos++] = (b >= 'a' && b <= 'z') ? (byte) (b - ('a' - 'A')) : b;
+            }
+        }
+        return dstPos;
+    }
+
+    @Override
+    public int indexOf(byte[] text, byte[] pattern, int from, int to) {
+        int m = pattern.length;
+        int last = Math.min(to, text.length - m + 1);
+        for (int i = Math.max(0, from); i < last; i++) {
+            if (m == 0 || (text[i] == pattern[0] && Arrays.equals(text, i, i + m, pattern, 0, m))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String name() {
+        return "escalar";
+    }
+}
@@ -0,0 +1,284 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+import com.genomics.common.ShardRouter;
+import com.genomics.common.TCPclient;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *  // Objetivo //
+ *     Repartir el análisis de un genoma grande entre varios servidores trabajadores
+ *     (modo SERVER_MODE=coordinator) y unir sus resultados en un único resultado por paciente.
+ *  // Proceso //
+ *     1. Obtiene el nombre y la longitud de cada registro FASTA del paciente del índice del
+ *        archivo (FastaIndex, sin leer las secuencias) y lee el panel de enfermedades.
+ *     2. Divide cada registro en regiones [inicio, fin) de tamaño similar; una región nunca
+ *        cruza el límite entre dos registros. Cada trabajador analiza su región más
+ *        (firma más larga - 1) bases extra del mismo registro, de modo que ninguna coincidencia
+ *        que cruce el borde entre dos regiones se pierda.
+ *     3. Envía cada región a un trabajador con
+ *        {"type":"SCAN_REGION","patient_id","record","start","end","max_positions","deadline_ms"}
+ *        por el mismo protocolo SSL; los trabajadores leen solo esa región del genoma de su
+ *        carpeta de datos, con su propio FastaIndex (cada trabajador debe tener una copia
+ *        idéntica del FASTA).
+ *     4. Si una región falla (error, BUSY, nodo caído) se reintenta en el siguiente trabajador.
+ *     5. Si una región tarda más que stragglerMs, se lanza una copia especulativa en otro
+ *        trabajador y se usa la primera respuesta. Cada intento espera al trabajador como
+ *        máximo hasta el plazo SCATTER_TIMEOUT_MS (tiempo de lectura del socket), porque
+ *        cancelar el Future no interrumpe una lectura bloqueada y el hilo quedaría ocupado.
+ *     6. Une los conteos y posiciones de cada región por registro y guarda el resultado como
+ *        processPatient. Cada trabajador devuelve como máximo SCAN_WIRE_POSITIONS posiciones en
+ *        total (repartidas entre las enfermedades del panel) y recorta su respuesta al límite de
+ *        64 KB (TCPserver.fitRegionResponse); los conteos siempre son exactos. "deadline_ms" es
+ *        el tiempo que le queda al análisis, para que el trabajador no siga después del plazo.
+ *  // Configuración //
+ *     WORKER_NODES               : Lista "host:puerto,..." de trabajadores.
+ *     SCATTER_REGIONS_PER_WORKER : Regiones por trabajador (por defecto 4).
+ *     SCATTER_MAX_ATTEMPTS       : Intentos máximos por región (por defecto 3).
+ *     SCATTER_STRAGGLER_MS       : Espera antes de duplicar una región lenta (por defecto 2000).
+ *     SCATTER_TIMEOUT_MS         : Tiempo máximo total del análisis (por defecto 120000).
+ */
+public class ScatterGatherCoordinator {
+    private static final int SCAN_WIRE_POSITIONS = 4000;
+
+    private final List<ShardRouter.Node> workers = new ArrayList<>();
+    private final Properties config;
+    private final int regionsPerWorker;
+    private final int maxAttempts;
+    private final long stragglerMs;
+    private final long timeoutMs;
+    private final ExecutorService pool;
+    private final Gson gson = new Gson();
+
+    public ScatterGatherCoordinator(Properties config) {
+        this.config = config;
+        for (String entry : config.getProperty("WORKER_NODES", "").split(",")) {
+            if (!entry.isBlank()) workers.add(ShardRouter.Node.parse(entry.trim()));
+        }
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("SERVER_MODE=coordinator requiere WORKER_NODES");
+        }
+        this.regionsPerWorker = Integer.parseInt(config.getProperty("SCATTER_REGIONS_PER_WORKER", "4"));
+        this.maxAttempts = Integer.parseInt(config.getProperty("SCATTER_MAX_ATTEMPTS", "3"));
+        this.stragglerMs = Long.parseLong(config.getProperty("SCATTER_STRAGGLER_MS", "2000"));
+        this.timeoutMs = Long.parseLong(config.getProperty("SCATTER_TIMEOUT_MS", "120000"));
+        this.pool = Executors.newCachedThreadPool();
+    }
+
+    /*
+     *  // Objetivo //
+     *     Equivalente distribuido de PatientHandler.processPatient.
+     *  // Salidas //
+     *     AnalysisResult con las enfermedades detectadas y los registros donde aparecen.
+     *  // Excepciones //
+     *     UncheckedIOException si no se pueden leer los datos o alguna región agota sus intentos.
+     */
+    public AnalysisResult processPatient(Patient patient) {
+        try {
+            long t = System.nanoTime();
+            List<Region> regions = split(PatientHandler.patientFile(patient.getPatient_id()));
+            DiseasePanel panel = DiseasePanel.load();
+            AnalysisResult result = new AnalysisResult(panel.signatures().keySet(), PatientHandler.MAX_POSITIONS);
+            ServerMetrics.FASTA_LOAD.recordSince(t);
+
+            t = System.nanoTime();
+            int wireCap = Math.max(1, SCAN_WIRE_POSITIONS / Math.max(1, panel.signatures().size()));
+            scatter(patient.getPatient_id(), regions, Math.min(PatientHandler.MAX_POSITIONS, wireCap), result);
+            ServerMetrics.MATCHING.recordSince(t);
+
+            t = System.nanoTime();
+            PatientHandler.savePatientResult(patient, result, panel);
+            ServerMetrics.RESULT_WRITE.recordSince(t);
+            CohortStats.record(patient, result, true);
+            return result;
+        } catch (IOException e) {
+            // El error lo cuenta quien llamó (TCPserver o JobManager)
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Dividir el genoma en regiones de tamaño similar (workers x regionsPerWorker en total),
+     *     sin que ninguna región cruce el límite entre dos registros FASTA.
+     *  // Salidas //
+     *     Lista de regiones. Los registros vacíos no generan regiones.
+     */
+    private List<Region> split(String path) throws IOException {
+        List<FastaIndex.Entry> records = FastaIndex.of(path).records();
+        long total = 0;
+        for (FastaIndex.Entry record : records) total += record.length();
+
+        long target = (long) workers.size() * regionsPerWorker;
+        int regionSize = (int) Math.max(1, (total + target - 1) / target);
+        List<Region> regions = new ArrayList<>();
+        for (FastaIndex.Entry record : records) {
+            for (int start = 0; start < record.length(); start += regionSize) {
+                regions.add(new Region(record.index(), record.name(), start, Math.min(record.length(), start + regionSize)));
+            }
+        }
+        return regions;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Enviar todas las regiones, reintentar las fallidas, duplicar las lentas y unir los resultados.
+     *  // Salidas //
+     *     Agrega a 'result' las coincidencias de cada región, por registro.
+     */
+    private void scatter(String patientId, List<Region> plan, int cap, AnalysisResult result) throws IOException {
+        int regions = plan.size();
+
+        CompletionService<RegionResult> completion = new ExecutorCompletionService<>(pool);
+        List<Future<RegionResult>> outstanding = new ArrayList<>();
+        boolean[] done = new boolean[regions];
+        int[] attempts = new int[regions];
+        int[] lastWorker = new int[regions];
+        long[] startedAt = new long[regions];
+        int[] inFlight = new int[regions];
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (int r = 0; r < regions; r++) {
+            lastWorker[r] = r % workers.size();
+            startedAt[r] = System.nanoTime();
+            attempts[r] = 1;
+            inFlight[r] = 1;
+            outstanding.add(submit(completion, patientId, r, plan.get(r), cap, lastWorker[r], deadline));
+        }
+
+        int completed = 0;
+        try {
+            while (completed < regions) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) throw new IOException("Tiempo máximo de análisis distribuido excedido");
+
+                Future<RegionResult> f = completion.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(stragglerMs)), TimeUnit.NANOSECONDS);
+                if (f == null) {
+                    // Regiones lentas: lanzar una copia especulativa en otro trabajador
+                    for (int r = 0; r < regions; r++) {
+                        if (!done[r] && inFlight[r] == 1 && attempts[r] < maxAttempts && workers.size() > 1
+                                && System.nanoTime() - startedAt[r] > TimeUnit.MILLISECONDS.toNanos(stragglerMs)) {
+                            lastWorker[r] = (lastWorker[r] + 1) % workers.size();
+                            attempts[r]++;
+                            inFlight[r]++;
+                            outstanding.add(submit(completion, patientId, r, plan.get(r), cap, lastWorker[r], deadline));
+                        }
+                    }
+                    continue;
+                }
+
+                RegionResult answer = f.get();
+                int r = answer.region();
+                inFlight[r]--;
+                if (done[r]) continue;
+
+                if (answer.matches() != null) {
+                    done[r] = true;
+                    completed++;
+                    result.add(plan.get(r).record(), plan.get(r).name(), answer.matches());
+                } else if (inFlight[r] == 0) {
+                    if (attempts[r] >= maxAttempts) {
+                        throw new IOException("La región " + r + " falló " + attempts[r] + " veces: " + answer.error());
+                    }
+                    Log.warn("Reintentando región", "region", r, "error", answer.error());
+                    lastWorker[r] = (lastWorker[r] + 1) % workers.size();
+                    attempts[r]++;
+                    inFlight[r]++;
+                    startedAt[r] = System.nanoTime();
+                    outstanding.add(submit(completion, patientId, r, plan.get(r), cap, lastWorker[r], deadline));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Análisis distribuido interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            for (Future<RegionResult> f : outstanding) f.cancel(true);
+        }
+    }
+
+    private Future<RegionResult> submit(CompletionService<RegionResult> completion, String patientId,
+                                        int region, Region target, int cap, int workerIndex, long deadline) {
+        ShardRouter.Node worker = workers.get(workerIndex);
+        return completion.submit(() -> scanRegion(worker, patientId, region, target, cap, deadline));
+    }
+
+    /*
+     *  // Objetivo //
+     *     Pedir a un trabajador el análisis de una región, esperando su respuesta como máximo
+     *     hasta 'deadline' (System.nanoTime() del fin del análisis).
+     *  // Salidas //
+     *     RegionResult con las coincidencias por enfermedad, o con el error si el trabajador falló
+     *     o está ocupado.
+     */
+    private RegionResult scanRegion(ShardRouter.Node worker, String patientId, int region, Region target, int cap,
+                                    long deadline) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "SCAN_REGION");
+        msg.addProperty("patient_id", patientId);
+        msg.addProperty("record", target.record());
+        msg.addProperty("start", target.start());
+        msg.addProperty("end", target.end());
+        msg.addProperty("max_positions", cap);
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMs <= 0) {
+            return new RegionResult(region, null, worker + ": plazo del análisis agotado");
+        }
+        msg.addProperty("deadline_ms", remainingMs);
+        try {
+            String response = new TCPclient(worker.host(), worker.port(), config)
+                    .request(msg.toString(), (int) Math.min(Integer.MAX_VALUE, remainingMs));
+            if (!response.startsWith("{")) {
+                return new RegionResult(region, null, worker + ": " + response);
+            }
+            JsonObject reply = gson.fromJson(response, JsonObject.class);
+            if (reply.has("truncated")) {
+                // Faltarían conteos de algunas enfermedades: no se acepta un resultado incompleto
+                return new RegionResult(region, null, worker + ": respuesta truncada (demasiadas enfermedades en la región)");
+            }
+            JsonObject found = reply.getAsJsonObject("matches");
+            Map<String, MatchBuffer> matches = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonElement> entry : found.entrySet()) {
+                JsonObject disease = entry.getValue().getAsJsonObject();
+                MatchBuffer buffer = new MatchBuffer(cap);
+                JsonArray positions = disease.getAsJsonArray("positions");
+                for (JsonElement p : positions) {
+                    long v = p.getAsLong();
+                    buffer.add(target.record(), (int) (v >>> 1), (v & 1) != 0);
+                }
+                buffer.addCount(disease.get("count").getAsLong() - positions.size());
+                matches.put(entry.getKey(), buffer);
+            }
+            return new RegionResult(region, matches, null);
+        } catch (Exception e) {
+            return new RegionResult(region, null, worker + ": " + e.getMessage());
+        }
+    }
+
+    /* Región [start, end) del registro FASTA número 'record' (de nombre 'name'). */
+    private record Region(int record, String name, int start, int end) {
+    }
+
+    /* Resultado de un intento de análisis de una región (matches == null si falló). */
+    private record RegionResult(int region, Map<String, MatchBuffer> matches, String error) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.genomics;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ *  // Objetivo //
+ *     Centralizar la instrumentación del servidor: histogramas de latencia por etapa y
+ *     contadores globales (peticiones en curso, bytes analizados, errores, peticiones
+ *     rechazadas por carga, peticiones que vencieron su plazo y avance del re-análisis
+ *     de resultados guardados cuando cambia el panel).
+ *  // Histogramas //
+ *     TLS_HANDSHAKE : Negociación SSL/TLS con el cliente.
+ *     FRAME_READ    : Lectura del mensaje (readUTF) del socket.
+ *     JSON_PARSE    : Conversión del JSON recibido a Patient.
+ *     QUEUE_WAIT    : Espera en la cola de análisis antes de que un hilo tome la petición.
+ *     FASTA_LOAD    : Lectura de los archivos FASTA del paciente y de las enfermedades.
+ *     MATCHING      : Comparación de la secuencia del paciente contra las enfermedades.
+ *     RESULT_WRITE  : Escritura del archivo de resultados del paciente.
+ *     TOTAL_REQUEST : Tiempo total desde que se acepta la conexión hasta que se cierra.
+ *  // Exposición //
+ *     register() publica todo en JMX; render() genera un texto plano que sirve
+ *     MetricsEndpoint por HTTP local.
+ */
+public final class ServerMetrics implements ServerMetricsMBean {
+
+    public static final LatencyHistogram TLS_HANDSHAKE = new LatencyHistogram("tls_handshake");
+    public static final LatencyHistogram FRAME_READ = new LatencyHistogram("frame_read");
+    public static final LatencyHistogram JSON_PARSE = new LatencyHistogram("json_parse");
+    public static final LatencyHistogram QUEUE_WAIT = new LatencyHistogram("queue_wait");
+    public static final LatencyHistogram FASTA_LOAD = new LatencyHistogram("fasta_load");
+    public static final LatencyHistogram MATCHING = new LatencyHistogram("matching");
+    public static final LatencyHistogram RESULT_WRITE = new LatencyHistogram("result_write");
+    public static final LatencyHistogram TOTAL_REQUEST = new LatencyHistogram("total_request");
+
+    private static final List<LatencyHistogram> HISTOGRAMS = List.of(
+            TLS_HANDSHAKE, FRAME_READ, JSON_PARSE, QUEUE_WAIT, FASTA_LOAD, MATCHING, RESULT_WRITE, TOTAL_REQUEST);
+
+    private static final LongAdder IN_FLIGHT = new LongAdder();
+    private static final LongAdder REQUESTS = new LongAdder();
+    private static final LongAdder ERRORS = new LongAdder();
+    private static final LongAdder BYTES_SCANNED = new LongAdder();
+    private static final LongAdder SHED = new LongAdder();
+    private static final LongAdder TIMEOUTS = new LongAdder();
+    private static final AtomicLong RESCREEN_PENDING = new AtomicLong();
+    private static final LongAdder RESCREEN_UPDATED = new LongAdder();
+    private static final long START_NANOS = System.nanoTime();
+
+    private static final ServerMetrics INSTANCE = new ServerMetrics();
+
+    private ServerMetrics() {
+    }
+
+    public static void requestStarted() {
+        IN_FLIGHT.increment();
+        REQUESTS.increment();
+    }
+
+    public static void requestFinished() {
+        IN_FLIGHT.decrement();
+    }
+
+    public static void error() {
+        ERRORS.increment();
+    }
+
+    public static void bytesScanned(long bytes) {
+        BYTES_SCANNED.add(bytes);
+    }
+
+    public static void shed() {
+        SHED.increment();
+    }
+
+    public static void timeout() {
+        TIMEOUTS.increment();
+    }
+
+    /* Peticiones en curso (lo usa PanelRescreener para ceder ante el tráfico en línea). */
+    public static long inFlight() {
+        return IN_FLIGHT.sum();
+    }
+
+    /* Resultados que faltan revisar en el re-análisis actual (0 si no hay ninguno en curso). */
+    public static void rescreenPending(long pending) {
+        RESCREEN_PENDING.set(pending);
+    }
+
+    public static void rescreenUpdated() {
+        RESCREEN_UPDATED.increment();
+    }
+
+    /*
+     *  // Objetivo //
+     *     Registrar los histogramas y contadores en el MBeanServer de la plataforma.
+     *  // Salidas //
+     *     Ninguna; si el registro falla (ej: ya registrado) se informa en consola y el
+     *     servidor sigue funcionando sin JMX.
+     */
+    public static void register() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            mbs.registerMBean(INSTANCE, new ObjectName("com.genomics:type=Server"));
+            for (LatencyHistogram h : HISTOGRAMS) {
+                mbs.registerMBean(h, new ObjectName("com.genomics:type=Latency,stage=" + h.getName()));
+            }
+        } catch (Exception e) {
+            Log.warn("No se pudieron registrar las métricas JMX", "error", e.getMessage());
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Generar una representación en texto plano ("nombre valor" por línea) de todas las métricas.
+     *  // Salidas //
+     *     String con contadores, throughput medio y percentiles (en microsegundos) por etapa.
+     */
+    public static String render() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("requests_in_flight ").append(INSTANCE.getRequestsInFlight()).append('\n');
+        sb.append("requests_total ").append(INSTANCE.getRequestsTotal()).append('\n');
+        sb.append("errors_total ").append(INSTANCE.getErrorsTotal()).append('\n');
+        sb.append("requests_shed_total ").append(INSTANCE.getRequestsShed()).append('\n');
+        sb.append("requests_timed_out_total ").append(INSTANCE.getRequestsTimedOut()).append('\n');
+        sb.append("bytes_scanned_total ").append(INSTANCE.getBytesScanned()).append('\n');
+        sb.append("rescreen_pending ").append(INSTANCE.getRescreenPending()).append('\n');
+        sb.append("rescreen_updated_total ").append(INSTANCE.getRescreenUpdated()).append('\n');
+        sb.append("uptime_seconds ").append(String.format(Locale.ROOT, "%.1f", INSTANCE.getUptimeSeconds())).append('\n');
+        sb.append("requests_per_second ").append(String.format(Locale.ROOT, "%.3f", INSTANCE.getRequestsTotal() / Math.max(1e-9, INSTANCE.getUptimeSeconds()))).append('\n');
+        for (LatencyHistogram h : HISTOGRAMS) {
+            String n = h.getName();
+            sb.append(n).append("_count ").append(h.getCount()).append('\n');
+            sb.append(n).append("_mean_us ").append(String.format(Locale.ROOT, "%.1f", h.getMeanMicros())).append('\n');
+            sb.append(n).append("_p50_us ").append(h.getP50Micros()).append('\n');
+            sb.append(n).append("_p90_us ").append(h.getP90Micros()).append('\n');
+            sb.append(n).append("_p99_us ").append(h.getP99Micros()).append('\n');
+            sb.append(n).append("_max_us ").append(h.getMaxMicros()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public long getRequestsInFlight() {
+        return IN_FLIGHT.sum();
+    }
+
+    @Override
+    public long getRequestsTotal() {
+        return REQUESTS.sum();
+    }
+
+    @Override
+    public long getErrorsTotal() {
+        return ERRORS.sum();
+    }
+
+    @Override
+    public long getRequestsShed() {
+        return SHED.sum();
+    }
+
+    @Override
+    public long getRequestsTimedOut() {
+        return TIMEOUTS.sum();
+    }
+
+    @Override
+    public long getBytesScanned() {
+        return BYTES_SCANNED.sum();
+    }
+
+    @Override
+    public long getRescreenPending() {
+        return RESCREEN_PENDING.get();
+    }
+
+    @Override
+    public long getRescreenUpdated() {
+        return RESCREEN_UPDATED.sum();
+    }
+
+    @Override
+    public double getUptimeSeconds() {
+        return (System.nanoTime() - START_NANOS) / 1e9;
+    }
+}
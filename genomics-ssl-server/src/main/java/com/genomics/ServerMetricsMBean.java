@@ -0,0 +1,26 @@
+package com.genomics;
+
+/*
+ *  // Objetivo //
+ *     Interfaz JMX (Standard MBean) con los contadores globales del servidor,
+ *     registrada como "com.genomics:type=Server".
+ */
+public interface ServerMetricsMBean {
+    long getRequestsInFlight();
+
+    long getRequestsTotal();
+
+    long getErrorsTotal();
+
+    long getRequestsShed();
+
+    long getRequestsTimedOut();
+
+    long getBytesScanned();
+
+    long getRescreenPending();
+
+    long getRescreenUpdated();
+
+    double getUptimeSeconds();
+}
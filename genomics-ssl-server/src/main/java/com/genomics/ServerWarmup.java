@@ -0,0 +1,70 @@
+package com.genomics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *  // Objetivo //
+ *     Calentamiento opcional antes de abrir el puerto: ejecutar los caminos más usados del
+ *     análisis sobre un genoma sintético para que el JIT ya los haya compilado cuando llega la
+ *     primera petición (útil en reinicios escalonados, para volver enseguida al throughput normal).
+ *  // Proceso //
+ *     Repite hasta agotar el tiempo: compactar un FASTA sintético (NucleotideKernel.compact),
+ *     buscar el panel real en ambas hebras (PatientHandler.match, el mismo recorrido que
+ *     findMatches) y unir los resultados (AnalysisResult). No lee ni escribe archivos de pacientes.
+ *  // Configuración //
+ *     WARMUP_MS : Duración del calentamiento en milisegundos; 0 = desactivado (por defecto).
+ *     El calentamiento no se cuenta en las métricas: no suma a bytes_scanned_total ni registra
+ *     tiempos en los histogramas (MATCHING, etc.), que solo reflejan peticiones reales.
+ */
+final class ServerWarmup {
+    private static final int GENOME_SIZE = 1 << 18;
+    private static final int LINE = 60;
+
+    private ServerWarmup() {
+    }
+
+    static void run(long millis) {
+        if (millis <= 0) return;
+        try {
+            DiseasePanel panel = DiseasePanel.load();
+            List<DiseasePanel.Matcher> matchers = panel.matchers();
+            byte[] fasta = syntheticFasta();
+            byte[] genome = new byte[fasta.length];
+            NucleotideKernel kernel = NucleotideKernel.INSTANCE;
+
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(millis);
+            int rounds = 0;
+            while (System.nanoTime() < deadline) {
+                int length = kernel.compact(fasta, 0, fasta.length, genome, 0);
+                AnalysisResult result = new AnalysisResult(panel.signatures().keySet(), PatientHandler.MAX_POSITIONS);
+                result.add(0, "warmup", PatientHandler.match(genome, 0, 0, 0, length, matchers, PatientHandler.MAX_POSITIONS));
+                result.describe();
+                result.getMatches();
+                rounds++;
+            }
+            Log.info("Calentamiento terminado", "rondas", rounds,
+                    "ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            Log.warn("No se pudo hacer el calentamiento", "error", e.getMessage());
+        }
+    }
+
+    /* Genoma aleatorio en líneas de 60 bases, mitad en minúsculas, como un FASTA real. */
+    private static byte[] syntheticFasta() {
+        byte[] bases = "ACGTacgt".getBytes(StandardCharsets.US_ASCII);
+        Random random = new Random(42);
+        byte[] fasta = new byte[GENOME_SIZE + GENOME_SIZE / LINE + 1];
+        int pos = 0;
+        for (int i = 0; i < GENOME_SIZE; i++) {
+            fasta[pos++] = bases[random.nextInt(bases.length)];
+            if ((i + 1) % LINE == 0) fasta[pos++] = '\n';
+        }
+        while (pos < fasta.length) fasta[pos++] = '\n';
+        return fasta;
+    }
+}
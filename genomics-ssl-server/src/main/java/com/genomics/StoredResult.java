@@ -0,0 +1,89 @@
+package com.genomics;
+
+import com.genomics.common.Patient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ *  // Objetivo //
+ *     Resultado de un paciente en formato JSON ("patient_<ID>_results.json", junto al .txt),
+ *     con lo necesario para actualizarlo cuando cambia el panel sin volver a analizar todo.
+ *  // Atributos //
+ *     patient       : Paciente analizado (para regenerar el archivo .txt).
+ *     panel_version : DiseasePanel.version del panel usado.
+ *     signatures    : Enfermedad -> huella de la firma usada (DiseasePanel.fingerprints).
+ *     records       : Índice -> nombre de cada registro FASTA analizado.
+ *     diseases      : Enfermedad detectada -> conteos por registro y posiciones guardadas.
+ *     saved_at      : Instante de escritura (milisegundos desde epoch).
+ */
+public class StoredResult {
+    private Patient patient;
+    private String panel_version;
+    private Map<String, String> signatures;
+    private Map<Integer, String> records;
+    private Map<String, Matches> diseases;
+    private long saved_at;
+
+    /* Coincidencias de una enfermedad: conteo por índice de registro y posiciones (MatchBuffer). */
+    public static class Matches {
+        private Map<Integer, Long> counts;
+        private long[] positions;
+    }
+
+    public static StoredResult of(Patient patient, AnalysisResult result, DiseasePanel panel) {
+        StoredResult stored = new StoredResult();
+        stored.patient = patient;
+        stored.panel_version = panel.version();
+        stored.signatures = new LinkedHashMap<>(panel.fingerprints());
+        stored.records = result.getRecordNames();
+        stored.diseases = new LinkedHashMap<>();
+        for (Map.Entry<String, MatchBuffer> entry : result.getMatches().entrySet()) {
+            Matches matches = new Matches();
+            matches.counts = result.getCountsByRecord(entry.getKey());
+            matches.positions = entry.getValue().sorted();
+            stored.diseases.put(entry.getKey(), matches);
+        }
+        stored.saved_at = System.currentTimeMillis();
+        return stored;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Volver a cargar en 'result' las coincidencias guardadas de las enfermedades de 'keep'
+     *     (las que siguen en el panel con la misma firma), registro por registro.
+     */
+    public void addTo(AnalysisResult result, Set<String> keep, int cap) {
+        for (Map.Entry<Integer, String> record : records.entrySet()) {
+            result.add(record.getKey(), record.getValue(), Map.of());
+        }
+        for (Map.Entry<String, Matches> entry : diseases.entrySet()) {
+            if (!keep.contains(entry.getKey())) continue;
+            Matches matches = entry.getValue();
+            for (Map.Entry<Integer, Long> count : matches.counts.entrySet()) {
+                int record = count.getKey();
+                MatchBuffer buffer = new MatchBuffer(cap);
+                for (long position : matches.positions) {
+                    if (MatchBuffer.record(position) == record) {
+                        buffer.add(record, MatchBuffer.offset(position), MatchBuffer.reverse(position));
+                    }
+                }
+                buffer.addCount(count.getValue() - buffer.count());
+                result.add(record, records.getOrDefault(record, "registro" + (record + 1)), Map.of(entry.getKey(), buffer));
+            }
+        }
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public String getPanel_version() {
+        return panel_version;
+    }
+
+    public Map<String, String> getSignatures() {
+        return signatures;
+    }
+}
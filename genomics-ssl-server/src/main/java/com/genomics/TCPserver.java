@@ -2,14 +2,35 @@ package com.genomics;
 
 import com.genomics.common.Patient;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 
 import javax.net.ssl.SSLServerSocket;
 import javax.net.ssl.SSLServerSocketFactory;
 import javax.net.ssl.SSLSocket;
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 
 /*
@@ -17,20 +38,65 @@ import java.util.List;
  *     Implementar un servidor TCP seguro (SSL/TLS) capaz de recibir objetos Patient en formato JSON,
  *     procesarlos para detectar enfermedades y enviar una respuesta al cliente.
  *  // Atributos //
- *     serverPort : Puerto en el que el servidor escuchará conexiones entrantes.
+ *     serverPort       : Puerto en el que el servidor escuchará conexiones entrantes.
+ *     connectionPool   : Hilos que atienden conexiones (handshake, lectura, respuesta). Cola acotada;
+ *                        si se llena, la conexión se cierra de inmediato.
+ *     analysisPool     : Hilos que ejecutan PatientHandler.processPatient. Cola acotada entre la
+ *                        aceptación y el análisis.
+ *     idleTimeoutMs    : Tiempo máximo para completar el handshake y recibir el primer byte.
+ *     readTimeoutMs    : Tiempo máximo de lectura del resto del mensaje.
+ *     defaultDeadlineMs: Plazo aplicado cuando el cliente no envía "deadline_ms".
+ *     serviceNanosEwma : Media móvil del tiempo de análisis, usada para estimar la espera en cola.
+ *     analyzer         : Análisis de un paciente: PatientHandler.processPatient, o
+ *                        ScatterGatherCoordinator.processPatient si SERVER_MODE=coordinator.
+ *     jobManager       : Trabajos asíncronos ("SUBMIT"/"STATUS"/"SUBSCRIBE"), persistidos en disco.
+ *     rescreener       : Actualiza en segundo plano los resultados guardados cuando cambia el panel.
+ *     subscribeTimeoutMs: Tiempo máximo que una suscripción mantiene la conexión abierta.
+ *     subscribers      : Suscripciones simultáneas permitidas (SERVER_MAX_SUBSCRIBERS). Cada una
+ *                        ocupa un hilo de connectionPool mientras espera; por encima del límite
+ *                        se responde BUSY para que PING, STATUS y el tráfico síncrono sigan atendidos.
+ *  // Configuración (config.properties, todas opcionales) //
+ *     SERVER_WORKER_THREADS, SERVER_QUEUE_CAPACITY, SERVER_IO_THREADS, SERVER_ACCEPT_BACKLOG,
+ *     SERVER_IDLE_TIMEOUT_MS, SERVER_READ_TIMEOUT_MS, SERVER_DEFAULT_DEADLINE_MS,
+ *     SERVER_JOB_THREADS, SERVER_JOB_QUEUE_CAPACITY, SERVER_JOB_RETENTION_MS,
+ *     SERVER_SUBSCRIBE_TIMEOUT_MS, SERVER_MAX_SUBSCRIBERS,
+ *     SERVER_MODE (standalone | coordinator), WORKER_NODES (ver ScatterGatherCoordinator),
+ *     PANEL_CHECK_INTERVAL_MS y RESCREEN_* (ver PanelRescreener), COHORT_SNAPSHOT_INTERVAL_MS
+ *     y COHORT_TIMELINE_HOURS (ver CohortStats).
+ *  // Protocolo //
+ *     Cada conexión envía un único mensaje JSON (writeUTF) y recibe una única respuesta.
+ *     Sin "type"        : Patient a analizar de forma síncrona (formato original).
+ *     "type":"PING"     : Chequeo de salud -> "PONG".
+ *     "type":"SCAN_REGION": {"type":"SCAN_REGION","patient_id","record","start","end","max_positions"?}
+ *                         -> {"matches":{"<enfermedad>":{"count","positions"}}} (análisis parcial
+ *                         pedido por un coordinador; ver scanRegionRequest).
+ *     "type":"SUBMIT"   : {"type":"SUBMIT","patient":{...}} -> JSON con job_id y status QUEUED.
+ *     "type":"STATUS"   : {"type":"STATUS","job_id":"..."} -> JSON con el estado actual del trabajo.
+ *     "type":"SUBSCRIBE": {"type":"SUBSCRIBE","job_id":"..."} -> espera y devuelve el trabajo terminado.
+ *     "type":"COHORT_STATS": {"type":"COHORT_STATS","disease"?,"top"?,"hours"?} -> prevalencia por
+ *                         enfermedad, franja de edad y sexo, y coincidencias por hora (CohortStats.query).
+ *     Si el FASTA del paciente no está en este nodo, ANALYZE, SUBMIT y SCAN_REGION responden
+ *     NOT_FOUND_RESPONSE (nunca un resultado vacío), para que el cliente pruebe otro nodo.
  *  // Constructor //
- *     TCPServer(int serverPort) : Inicializa el servidor con el puerto especificado.
+ *     TCPServer(int serverPort) : Inicializa el servidor con el puerto especificado y valores por defecto.
+ *     TCPServer(int serverPort, Properties config) : Igual, leyendo los límites de la configuración.
  *  // Métodos //
  *     start() :
- *         1. Crea un SSLServerSocket en el puerto definido.
- *         2. Escucha conexiones entrantes en un bucle infinito.
+ *         1. Recupera los trabajos asíncronos guardados y las estadísticas de la cohorte, inicia
+ *            PanelRescreener y crea un SSLServerSocket en el puerto definido.
+ *         2. Escucha conexiones entrantes en un bucle infinito y entrega cada una a connectionPool.
  *         3. Para cada cliente:
- *            a) Crea flujos de entrada y salida de datos.
- *            b) Lee un mensaje en formato UTF (JSON de Patient).
+ *            a) Crea flujos de entrada y salida de datos, con los tiempos de espera configurados.
+ *            b) Lee un mensaje en formato UTF (JSON de Patient, con "deadline_ms" opcional).
+ *               Los mensajes con "type" se atienden con jobManager (ver Protocolo).
  *            c) Convierte el JSON a un objeto Patient usando Gson.
- *            d) Procesa el paciente llamando a PatientHandler.processPatient.
- *            e) Envía la respuesta al cliente con las enfermedades detectadas.
+ *            d) Si la espera estimada en cola supera el plazo, o la cola está llena, responde
+ *               "BUSY" sin procesar. Si no, encola el análisis (analyzer) en analysisPool.
+ *            e) Envía la respuesta al cliente con las enfermedades detectadas (recortada a
+ *               MAX_RESPONSE_BYTES; ver analyzeResponse), o "TIMEOUT" si el análisis no terminó
+ *               dentro del plazo.
  *            f) Maneja excepciones de parsing o de conexión y cierra el socket del cliente.
+ *         4. Registra en ServerMetrics la duración de cada etapa y el total de la petición.
  *  // Salidas //
  *     Muestra en consola información de los pacientes recibidos, resultados del procesamiento
  *     y mensajes de error si ocurren problemas.
@@ -39,45 +105,478 @@ import java.util.List;
  */
 
 public class TCPserver {
+    static final String BUSY_RESPONSE = "BUSY: servidor ocupado, reintente más tarde.";
+    static final String TIMEOUT_RESPONSE = "TIMEOUT: el análisis no terminó dentro del plazo.";
+    static final String NOT_FOUND_RESPONSE = "NOT_FOUND: el genoma del paciente no está en este nodo.";
+    // Margen bajo el límite de 64 KB de writeUTF
+    static final int MAX_RESPONSE_BYTES = 60_000;
+
     private int serverPort;
+    private final int workerThreads;
+    private final int idleTimeoutMs;
+    private final int readTimeoutMs;
+    private final long defaultDeadlineMs;
+    private final ThreadPoolExecutor connectionPool;
+    private final ThreadPoolExecutor analysisPool;
+    private final long subscribeTimeoutMs;
+    private final Semaphore subscribers;
+    private final JobManager jobManager;
+    private final PanelRescreener rescreener;
+    private final long cohortSnapshotMs;
+    private final int cohortTimelineHours;
+    private final Function<Patient, AnalysisResult> analyzer;
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile long serviceNanosEwma = TimeUnit.MILLISECONDS.toNanos(10);
 
     public TCPserver(int serverPort) {
+        this(serverPort, new Properties());
+    }
+
+    public TCPserver(int serverPort, Properties config) {
         this.serverPort = serverPort;
+        this.workerThreads = intProperty(config, "SERVER_WORKER_THREADS", Runtime.getRuntime().availableProcessors());
+        int queueCapacity = intProperty(config, "SERVER_QUEUE_CAPACITY", 64);
+        int ioThreads = intProperty(config, "SERVER_IO_THREADS", 32);
+        int acceptBacklog = intProperty(config, "SERVER_ACCEPT_BACKLOG", 128);
+        this.idleTimeoutMs = intProperty(config, "SERVER_IDLE_TIMEOUT_MS", 10_000);
+        this.readTimeoutMs = intProperty(config, "SERVER_READ_TIMEOUT_MS", 30_000);
+        this.defaultDeadlineMs = intProperty(config, "SERVER_DEFAULT_DEADLINE_MS", 30_000);
+        this.subscribeTimeoutMs = intProperty(config, "SERVER_SUBSCRIBE_TIMEOUT_MS", 300_000);
+        this.subscribers = new Semaphore(intProperty(config, "SERVER_MAX_SUBSCRIBERS", Math.max(1, ioThreads / 4)));
+        if ("coordinator".equalsIgnoreCase(config.getProperty("SERVER_MODE", "standalone").trim())) {
+            this.analyzer = new ScatterGatherCoordinator(config)::processPatient;
+        } else {
+            this.analyzer = PatientHandler::processPatient;
+        }
+        this.jobManager = new JobManager(intProperty(config, "SERVER_JOB_THREADS", 1),
+                intProperty(config, "SERVER_JOB_QUEUE_CAPACITY", 1000),
+                Long.parseLong(config.getProperty("SERVER_JOB_RETENTION_MS", "86400000").trim()), analyzer);
+        this.rescreener = new PanelRescreener(config, this::analysisLoad);
+        this.cohortSnapshotMs = intProperty(config, "COHORT_SNAPSHOT_INTERVAL_MS", 60_000);
+        this.cohortTimelineHours = intProperty(config, "COHORT_TIMELINE_HOURS", 168);
+
+        this.connectionPool = new ThreadPoolExecutor(ioThreads, ioThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(acceptBacklog));
+        this.analysisPool = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+    }
+
+    /*
+     *  Análisis que compiten por CPU: en curso o en cola en analysisPool, más los trabajos
+     *  asíncronos pendientes. Las conexiones que solo esperan (ej: "SUBSCRIBE") no cuentan.
+     */
+    private int analysisLoad() {
+        return analysisPool.getActiveCount() + analysisPool.getQueue().size() + jobManager.pending();
+    }
+
+    /* Entero de la configuración, sin espacios alrededor; si falta o está vacío, defaultValue. */
+    static int intProperty(Properties config, String key, int defaultValue) {
+        String value = config.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
     }
 
     public void start() {
+        jobManager.recover();
+        CohortStats.start(cohortSnapshotMs, cohortTimelineHours);
+        rescreener.start();
         try {
             SSLServerSocketFactory sslSocketFactory = (SSLServerSocketFactory) SSLServerSocketFactory.getDefault();
             SSLServerSocket serverSocket = (SSLServerSocket) sslSocketFactory.createServerSocket(serverPort);
-            System.out.println("Server started on port: " + serverPort);
+            Log.info("Servidor iniciado", "port", serverPort);
 
             while (true) {
                 SSLSocket clientSocket = (SSLSocket) serverSocket.accept();
-                DataInputStream dis = new DataInputStream(clientSocket.getInputStream());
-                DataOutputStream out = new DataOutputStream(clientSocket.getOutputStream());
-
-                String message = dis.readUTF();
-                System.out.println("Received raw: " + message);
-
-                // Convertir de JSON a Patient
-                Gson gson = new Gson();
+                long requestStart = System.nanoTime();
                 try {
-                    Patient patient = gson.fromJson(message, Patient.class);
-                    System.out.println("Procesando paciente: " + patient.getFull_name());
-                    List<String> diseases = PatientHandler.processPatient(patient);
-
-                    System.out.println("Enfermedades detectadas: " + (diseases.isEmpty() ? "Ninguna" : String.join(", ", diseases)));
-                    out.writeUTF("Paciente " + patient.getFull_name() + " procesado. Enfermedades detectadas: " +
-                            (diseases.isEmpty() ? "Ninguna" : String.join(", ", diseases)));
-                } catch (Exception e) {
-                    System.out.println("Error al parsear JSON: " + e.getMessage());
-                    out.writeUTF("Error al procesar el paciente.");
+                    connectionPool.execute(() -> serveClient(clientSocket, requestStart));
+                } catch (RejectedExecutionException e) {
+                    // Demasiadas conexiones pendientes: cerrar sin handshake
+                    ServerMetrics.shed();
+                    closeQuietly(clientSocket);
                 }
-
-                clientSocket.close();
             }
         } catch (IOException e) {
-            System.out.println("Server error: " + e.getMessage());
+            Log.error("Error del servidor", "error", e.getMessage());
+        }
+    }
+
+    private void serveClient(SSLSocket clientSocket, long requestStart) {
+        ServerMetrics.requestStarted();
+        Log.beginRequest();
+        try {
+            handleClient(clientSocket);
+        } catch (SocketTimeoutException e) {
+            ServerMetrics.error();
+            Log.request(Log.Level.WARN, "Tiempo de espera agotado con el cliente", "error", e.getMessage());
+        } catch (IOException e) {
+            ServerMetrics.error();
+            Log.request(Log.Level.WARN, "Error de conexión con el cliente", "error", e.getMessage());
+        } finally {
+            closeQuietly(clientSocket);
+            ServerMetrics.requestFinished();
+            ServerMetrics.TOTAL_REQUEST.recordSince(requestStart);
+        }
+    }
+
+    private static void closeQuietly(SSLSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /*
+     *  // Objetivo //
+     *     Atender a un cliente ya aceptado, midiendo cada etapa en ServerMetrics.
+     *  // Proceso //
+     *     1. Completa el handshake TLS y espera el primer byte con idleTimeoutMs.
+     *     2. Lee el resto del mensaje UTF con readTimeoutMs y lo parsea como JSON.
+     *     3. Según "type", atiende un trabajo asíncrono o un análisis síncrono (analyzeRequest).
+     *  // Excepciones //
+     *     Lanza IOException (o SocketTimeoutException) si falla el handshake o la lectura/escritura del socket.
+     */
+    private void handleClient(SSLSocket clientSocket) throws IOException {
+        clientSocket.setSoTimeout(idleTimeoutMs);
+        long t = System.nanoTime();
+        clientSocket.startHandshake();
+        ServerMetrics.TLS_HANDSHAKE.recordSince(t);
+
+        BufferedInputStream in = new BufferedInputStream(clientSocket.getInputStream());
+        DataInputStream dis = new DataInputStream(in);
+        DataOutputStream out = new DataOutputStream(clientSocket.getOutputStream());
+
+        // Esperar el inicio del mensaje con el timeout de inactividad
+        in.mark(1);
+        if (in.read() < 0) return;
+        in.reset();
+
+        clientSocket.setSoTimeout(readTimeoutMs);
+        t = System.nanoTime();
+        String message = dis.readUTF();
+        long received = System.nanoTime();
+        ServerMetrics.FRAME_READ.recordSince(t);
+        Log.request(Log.Level.DEBUG, "Mensaje recibido", "raw", message);
+
+        Gson gson = new Gson();
+        try {
+            t = System.nanoTime();
+            JsonObject json = gson.fromJson(message, JsonObject.class);
+            String type = json.has("type") ? json.get("type").getAsString() : "ANALYZE";
+            switch (type) {
+                case "PING" -> out.writeUTF("PONG");
+                case "SCAN_REGION" -> scanRegionRequest(json, received, out);
+                case "SUBMIT" -> out.writeUTF(submitJob(gson.fromJson(json.get("patient"), Patient.class)));
+                case "STATUS" -> out.writeUTF(jobStatus(stringField(json, "job_id")));
+                case "SUBSCRIBE" -> out.writeUTF(subscribeJob(stringField(json, "job_id")));
+                case "COHORT_STATS" -> out.writeUTF(CohortStats.query(stringField(json, "disease"),
+                        json.has("top") ? json.get("top").getAsInt() : 50,
+                        json.has("hours") ? json.get("hours").getAsInt() : 24).toString());
+                default -> analyzeRequest(gson, json, t, received, out);
+            }
+        } catch (TimeoutException e) {
+            ServerMetrics.timeout();
+            out.writeUTF(TIMEOUT_RESPONSE);
+        } catch (Exception e) {
+            ServerMetrics.error();
+            Log.error("Error al procesar la petición", "error", e.getMessage());
+            out.writeUTF("Error al procesar el paciente.");
+        }
+    }
+
+    private static String stringField(JsonObject json, String name) {
+        return json.has(name) ? json.get(name).getAsString() : null;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Atender una petición síncrona de análisis (mensaje sin "type", el formato original).
+     *  // Entradas //
+     *     json       : Mensaje ya parseado (campos de Patient y "deadline_ms" opcional).
+     *     parseStart : Instante en que comenzó el parseo (para JSON_PARSE).
+     *     received   : Instante en que se terminó de leer el mensaje (origen del plazo).
+     *     out        : Flujo de salida hacia el cliente.
+     */
+    private void analyzeRequest(Gson gson, JsonObject json, long parseStart, long received, DataOutputStream out) throws Exception {
+        // Convertir de JSON a Patient
+        long deadlineMs = json.has("deadline_ms") ? json.get("deadline_ms").getAsLong() : defaultDeadlineMs;
+        Patient patient = gson.fromJson(json, Patient.class);
+        ServerMetrics.JSON_PARSE.recordSince(parseStart);
+        long deadline = received + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+
+        Log.request(Log.Level.INFO, "Procesando paciente", "patient_id", patient.getPatient_id());
+        if (!PatientHandler.hasGenome(patient.getPatient_id())) {
+            out.writeUTF(NOT_FOUND_RESPONSE);
+            return;
+        }
+        AnalysisResult result = analyze(() -> analyzer.apply(patient), deadline);
+        if (result == null) {
+            out.writeUTF(BUSY_RESPONSE);
+            return;
+        }
+
+        Log.request(Log.Level.INFO, "Análisis terminado", "patient_id", patient.getPatient_id(),
+                "enfermedades", result.getDiseases().size());
+        out.writeUTF(analyzeResponse(patient, result));
+    }
+
+    /*
+     *  // Objetivo //
+     *     Armar la respuesta de ANALYZE sin superar MAX_RESPONSE_BYTES.
+     *  // Proceso //
+     *     Si la lista completa (AnalysisResult.describe) no cabe, incluye enfermedades enteras
+     *     mientras quepan y termina con cuántas faltan y el archivo de resultados del paciente
+     *     (patients_results/patient_<ID>_results.txt), que siempre tiene la lista completa.
+     */
+    static String analyzeResponse(Patient patient, AnalysisResult result) {
+        String prefix = "Paciente " + patient.getFull_name() + " procesado. Enfermedades detectadas: ";
+        String response = prefix + result.describe();
+        if (utfLength(response) <= MAX_RESPONSE_BYTES) return response;
+
+        List<String> parts = result.describeParts();
+        StringBuilder text = new StringBuilder(prefix);
+        int size = utfLength(prefix);
+        int included = 0;
+        for (String part : parts) {
+            String note = note(parts.size() - included - 1, patient.getPatient_id());
+            int added = utfLength(part) + (included > 0 ? 2 : 0);
+            if (size + added + utfLength(note) > MAX_RESPONSE_BYTES) break;
+            if (included > 0) text.append(", ");
+            text.append(part);
+            size += added;
+            included++;
+        }
+        return text.append(note(parts.size() - included, patient.getPatient_id())).toString();
+    }
+
+    private static String note(int missing, String patientId) {
+        return " ... (" + missing + " enfermedades más; resultado completo en patients_results/"
+                + PatientHandler.resultFileName(patientId) + ")";
+    }
+
+    /*
+     *  // Objetivo //
+     *     Analizar una región del genoma por encargo de un coordinador ("SCAN_REGION").
+     *  // Entradas //
+     *     json : "patient_id", "record", "start", "end", y opcionales "max_positions" (máximo de
+     *            posiciones por enfermedad) y "deadline_ms" (tiempo que le queda al coordinador;
+     *            si falta se usa defaultDeadlineMs).
+     *  // Salidas //
+     *     Escribe {"matches":{"<enfermedad>":{"count":n,"positions":[offset*2+hebra,...]}}}
+     *     (solo las enfermedades encontradas), BUSY_RESPONSE si la petición fue rechazada por carga,
+     *     o NOT_FOUND_RESPONSE si el FASTA del paciente no está en este nodo. La respuesta se
+     *     recorta a MAX_RESPONSE_BYTES (ver fitRegionResponse).
+     */
+    private void scanRegionRequest(JsonObject json, long received, DataOutputStream out) throws Exception {
+        String patientId = stringField(json, "patient_id");
+        int record = json.has("record") ? json.get("record").getAsInt() : 0;
+        int start = json.get("start").getAsInt();
+        int end = json.get("end").getAsInt();
+        int cap = json.has("max_positions")
+                ? Math.min(PatientHandler.MAX_POSITIONS, json.get("max_positions").getAsInt())
+                : PatientHandler.MAX_POSITIONS;
+        long deadlineMs = json.has("deadline_ms") ? json.get("deadline_ms").getAsLong() : defaultDeadlineMs;
+        long deadline = received + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        if (!PatientHandler.hasGenome(patientId)) {
+            out.writeUTF(NOT_FOUND_RESPONSE);
+            return;
+        }
+
+        AnalysisResult result = analyze(() -> PatientHandler.scanRegion(patientId, record, start, end, cap), deadline);
+        if (result == null) {
+            out.writeUTF(BUSY_RESPONSE);
+            return;
+        }
+        out.writeUTF(fitRegionResponse(result.getMatches()).toString());
+    }
+
+    /*
+     *  // Objetivo //
+     *     Armar la respuesta de SCAN_REGION sin superar MAX_RESPONSE_BYTES.
+     *  // Proceso //
+     *     1. Si no cabe con todas las posiciones, busca (búsqueda binaria) el mayor k tal que
+     *        cabe con las k primeras posiciones de cada enfermedad. Los conteos no cambian: el
+     *        coordinador cuenta las posiciones que faltan como coincidencias sin posición.
+     *     2. Si ni sin posiciones cabe (panel muy grande), quita enfermedades del final y marca
+     *        "truncated":true; el coordinador trata esa respuesta como un error de la región.
+     */
+    static JsonObject fitRegionResponse(Map<String, MatchBuffer> found) {
+        Map<String, long[]> sorted = new LinkedHashMap<>();
+        int longest = 0;
+        for (Map.Entry<String, MatchBuffer> entry : found.entrySet()) {
+            long[] positions = entry.getValue().sorted();
+            sorted.put(entry.getKey(), positions);
+            longest = Math.max(longest, positions.length);
+        }
+        JsonObject response = regionResponse(found, sorted, longest);
+        if (utfLength(response.toString()) <= MAX_RESPONSE_BYTES) return response;
+
+        int low = 0, high = longest - 1;
+        while (low < high) {
+            int k = (low + high + 1) >>> 1;
+            if (utfLength(regionResponse(found, sorted, k).toString()) <= MAX_RESPONSE_BYTES) low = k;
+            else high = k - 1;
+        }
+        response = regionResponse(found, sorted, low);
+        int size = utfLength(response.toString());
+        if (size <= MAX_RESPONSE_BYTES) return response;
+
+        JsonObject matches = response.getAsJsonObject("matches");
+        List<String> names = new ArrayList<>(matches.keySet());
+        for (int i = names.size() - 1; i >= 0 && size > MAX_RESPONSE_BYTES; i--) {
+            String name = names.get(i);
+            size -= utfLength(new JsonPrimitive(name).toString()) + utfLength(matches.remove(name).toString()) + 2;
+        }
+        response.addProperty("truncated", true);
+        return response;
+    }
+
+    /* {"matches":...} con como máximo 'limit' posiciones (las menores) por enfermedad. */
+    private static JsonObject regionResponse(Map<String, MatchBuffer> found, Map<String, long[]> sorted, int limit) {
+        JsonObject matches = new JsonObject();
+        for (Map.Entry<String, MatchBuffer> entry : found.entrySet()) {
+            long[] all = sorted.get(entry.getKey());
+            JsonArray positions = new JsonArray();
+            for (int i = 0; i < Math.min(limit, all.length); i++) {
+                positions.add(all[i] & 0xFFFFFFFFL);
+            }
+            JsonObject disease = new JsonObject();
+            disease.addProperty("count", entry.getValue().count());
+            disease.add("positions", positions);
+            matches.add(entry.getKey(), disease);
+        }
+        JsonObject response = new JsonObject();
+        response.add("matches", matches);
+        return response;
+    }
+
+    /* Bytes que ocupa el texto en writeUTF (UTF-8 modificado). */
+    static int utfLength(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return length;
+    }
+
+    /*
+     *  // Objetivo //
+     *     Registrar un análisis asíncrono ("SUBMIT") y responder de inmediato con su job_id.
+     *  // Salidas //
+     *     JSON del trabajo (estado QUEUED), BUSY_RESPONSE si la cola de trabajos está llena, o
+     *     NOT_FOUND_RESPONSE si el FASTA del paciente no está en este nodo.
+     */
+    private String submitJob(Patient patient) throws IOException {
+        if (patient == null) throw new IllegalArgumentException("SUBMIT requiere el campo \"patient\"");
+        if (!PatientHandler.hasGenome(patient.getPatient_id())) return NOT_FOUND_RESPONSE;
+        Job job = jobManager.submit(patient);
+        if (job == null) {
+            ServerMetrics.shed();
+            return BUSY_RESPONSE;
+        }
+        Log.request(Log.Level.INFO, "Trabajo encolado", "job_id", job.getJob_id(), "patient_id", patient.getPatient_id());
+        return JobManager.toResponse(job);
+    }
+
+    /* Responder el estado actual de un trabajo ("STATUS"). */
+    private String jobStatus(String jobId) {
+        Job job = jobManager.get(jobId);
+        return job == null ? unknownJob(jobId) : JobManager.toResponse(job);
+    }
+
+    /*
+     *  // Objetivo //
+     *     Mantener la conexión abierta hasta que el trabajo termine ("SUBSCRIBE").
+     *  // Salidas //
+     *     JSON del trabajo terminado; si vence subscribeTimeoutMs se devuelve el estado actual
+     *     (QUEUED o RUNNING) para que el cliente vuelva a suscribirse o consulte más tarde.
+     *     BUSY_RESPONSE si ya hay 'subscribers' suscripciones esperando y el trabajo no terminó.
+     */
+    private String subscribeJob(String jobId) throws Exception {
+        Job job = jobManager.get(jobId);
+        if (job == null) return unknownJob(jobId);
+        if (job.isFinished()) return JobManager.toResponse(job);
+        if (!subscribers.tryAcquire()) {
+            ServerMetrics.shed();
+            return BUSY_RESPONSE;
+        }
+        try {
+            jobManager.await(jobId, subscribeTimeoutMs);
+        } catch (TimeoutException e) {
+            // Se responde con el estado actual
+        } finally {
+            subscribers.release();
+        }
+        return JobManager.toResponse(job);
+    }
+
+    private static String unknownJob(String jobId) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("job_id", jobId);
+        obj.addProperty("status", "UNKNOWN");
+        return obj.toString();
+    }
+
+    /*
+     *  // Objetivo //
+     *     Ejecutar un análisis (de paciente o de región) en analysisPool respetando el plazo del cliente.
+     *  // Proceso //
+     *     1. Estima la espera en cola como (tareas en cola / hilos) * tiempo medio de análisis.
+     *        Si supera el tiempo restante hasta el plazo, rechaza sin encolar.
+     *     2. Encola la tarea; si la cola está llena, rechaza.
+     *     3. Al tomar la tarea, si el plazo ya venció, no la procesa (el cliente ya no la espera).
+     *     4. Espera el resultado como máximo hasta el plazo. Si vence, cancela la tarea
+     *        (interrumpe el hilo, o la saca de la cola si aún no empezó) para que el trabajo que
+     *        ya nadie espera no siga ocupando analysisPool justo cuando el servidor está saturado.
+     *  // Salidas //
+     *     Resultado de la tarea, o null si la petición fue rechazada por carga.
+     *  // Excepciones //
+     *     TimeoutException si el análisis no terminó antes del plazo.
+     */
+    private <T> T analyze(Callable<T> task, long deadline) throws Exception {
+        long remaining = deadline - System.nanoTime();
+        long estimatedWait = (long) queued.get() * serviceNanosEwma / workerThreads;
+        if (remaining <= 0 || estimatedWait > remaining) {
+            ServerMetrics.shed();
+            return null;
+        }
+
+        long enqueued = System.nanoTime();
+        AtomicBoolean taken = new AtomicBoolean();
+        Future<T> future;
+        try {
+            queued.incrementAndGet();
+            future = analysisPool.submit(() -> {
+                if (!taken.compareAndSet(false, true)) return null;
+                queued.decrementAndGet();
+                long started = System.nanoTime();
+                ServerMetrics.QUEUE_WAIT.record(started - enqueued);
+                if (started > deadline) return null;
+
+                T result = task.call();
+                long service = System.nanoTime() - started;
+                serviceNanosEwma += (service - serviceNanosEwma) / 8;
+                return result;
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            ServerMetrics.shed();
+            return null;
+        }
+
+        try {
+            T result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (result == null) ServerMetrics.shed();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            if (taken.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                analysisPool.remove((Runnable) future);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IOException("Error en el análisis", e.getCause());
         }
     }
 }
@@ -0,0 +1,99 @@
+package com.genomics;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/*
+ *  // Objetivo //
+ *     Implementación SIMD de NucleotideKernel con la Vector API (jdk.incubator.vector):
+ *     procesa SPECIES.length() bytes por instrucción (16, 32 o 64 según el procesador).
+ *  // Requisitos //
+ *     Compilar y ejecutar con --add-modules jdk.incubator.vector. Solo se obtiene con create(),
+ *     desde NucleotideKernel.select(), que usa ScalarKernel si el módulo no está presente.
+ */
+class VectorKernel implements NucleotideKernel {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final byte CASE_DELTA = 'a' - 'A';
+
+    private final ScalarKernel scalar = new ScalarKernel();
+
+    private VectorKernel() {
+    }
+
+    /* VectorKernel si el hardware tiene vectores de al menos 16 bytes; si no, ScalarKernel. */
+    static NucleotideKernel create() {
+        // Con vectores más cortos la Vector API no aporta frente al código escalar
+        return SPECIES.length() < 16 ? new ScalarKernel() : new VectorKernel();
+    }
+
+    /*
+     *  // Proceso //
+     *     1. Carga un vector, pasa a mayúsculas las letras a-z (resta enmascarada) y lo escribe
+     *        completo en dst.
+     *     2. Si el vector tiene algún byte a descartar (salto de línea, espacio), solo se avanza
+     *        hasta ese byte y se continúa justo después de él: el resto de lo escrito se
+     *        sobrescribe en la iteración siguiente. En un FASTA con líneas de 60-80 bases esto
+     *        cuesta una iteración extra por línea.
+     *     3. El final (menos de un vector, o sin espacio de sobra en dst) se copia con ScalarKernel.
+     */
+    @Override
+    public int compact(byte[] src, int from, int to, byte[] dst, int dstPos) {
+        int len = SPECIES.length();
+        int i = from;
+        while (i + len <= to && dstPos + len <= dst.length) {
+            ByteVector v = ByteVector.fromArray(SPECIES, src, i);
+            VectorMask<Byte> lower = v.compare(VectorOperators.GE, (byte) 'a')
+                    .and(v.compare(VectorOperators.LE, (byte) 'z'));
+            v = v.lanewise(VectorOperators.SUB, CASE_DELTA, lower);
+            v.intoArray(dst, dstPos);
+
+            int keep = v.compare(VectorOperators.LE, (byte) ' ').firstTrue();
+            dstPos += keep;
+            i += keep == len ? len : keep + 1;
+        }
+        return scalar.compact(src, i, to, dst, dstPos);
+    }
+
+    /*
+     *  // Proceso //
+     *     1. Compara cada bloque de SPECIES.length() posiciones candidatas contra la primera y la
+     *        última base de la firma (dos comparaciones vectoriales); en ADN con 4 bases
+     *        sobrevive aproximadamente 1 de cada 16 posiciones.
+     *     2. Cada candidata se verifica completa con Arrays.equals (también vectorizado por la JVM).
+     *     3. Las posiciones finales que no llenan un bloque se buscan con ScalarKernel.
+     */
+    @Override
+    public int indexOf(byte[] text, byte[] pattern, int from, int to) {
+        int m = pattern.length;
+        if (m == 0) return scalar.indexOf(text, pattern, from, to);
+
+        int len = SPECIES.length();
+        int last = Math.min(to, text.length - m + 1);
+        ByteVector first = ByteVector.broadcast(SPECIES, pattern[0]);
+        ByteVector end = ByteVector.broadcast(SPECIES, pattern[m - 1]);
+
+        int i = Math.max(0, from);
+        while (i < last && i + m - 1 + len <= text.length) {
+            long candidates = ByteVector.fromArray(SPECIES, text, i).compare(VectorOperators.EQ, first)
+                    .and(ByteVector.fromArray(SPECIES, text, i + m - 1).compare(VectorOperators.EQ, end))
+                    .toLong();
+            while (candidates != 0) {
+                int pos = i + Long.numberOfTrailingZeros(candidates);
+                if (pos >= last) return -1;
+                if (Arrays.equals(text, pos, pos + m, pattern, 0, m)) return pos;
+                candidates &= candidates - 1;
+            }
+            i += len;
+        }
+        return scalar.indexOf(text, pattern, i, to);
+    }
+
+    @Override
+    public String name() {
+        return "vectorial (" + SPECIES.length() + " bytes)";
+    }
+}
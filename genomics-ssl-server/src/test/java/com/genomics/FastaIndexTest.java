@@ -0,0 +1,162 @@
+package com.genomics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+ *  // Objetivo //
+ *     Verificar las posiciones del índice (como en un ".fai": offset, bases y bytes por línea)
+ *     y que FastaIndex.read devuelva las mismas bases que FastaReader para cualquier región.
+ */
+class FastaIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void uniformLinesGiveFaiOffsets() throws IOException {
+        String path = write("uniforme.fasta", ">chr1 descripcion\nACGTA\nCGTAC\nGT\n>chr2\nacgtn\nAC\n");
+        List<FastaIndex.Entry> records = FastaIndex.of(path).records();
+
+        assertEquals(List.of(
+                new FastaIndex.Entry(0, "chr1", 18, 12, 5, 6),
+                new FastaIndex.Entry(1, "chr2", 39, 7, 5, 6)), records);
+        assertRegionsMatchReader(path);
+    }
+
+    @Test
+    void crlfLinesCountTwoNewlineBytes() throws IOException {
+        String path = write("crlf.fasta", ">r1\r\nACGT\r\nACGT\r\nAC\r\n>r2\r\nGGGG\r\n");
+        List<FastaIndex.Entry> records = FastaIndex.of(path).records();
+
+        assertEquals(new FastaIndex.Entry(0, "r1", 5, 10, 4, 6), records.get(0));
+        assertEquals(new FastaIndex.Entry(1, "r2", 26, 4, 4, 6), records.get(1));
+        assertRegionsMatchReader(path);
+    }
+
+    @Test
+    void unevenLinesFallBackToSequentialRead() throws IOException {
+        String path = write("irregular.fasta", ">x\nACG\nACGTAC\nA\n>y\nTT\n\nTT\n");
+        List<FastaIndex.Entry> records = FastaIndex.of(path).records();
+
+        assertEquals(new FastaIndex.Entry(0, "x", 3, 10, 0, 0), records.get(0));
+        assertEquals(new FastaIndex.Entry(1, "y", 19, 4, 0, 0), records.get(1));
+        assertRegionsMatchReader(path);
+    }
+
+    @Test
+    void sequenceBeforeFirstHeaderIsUnnamedRecord() throws IOException {
+        String path = write("sin_encabezado.fasta", "ACGT\nAC\n>\nGG\n");
+        List<FastaIndex.Entry> records = FastaIndex.of(path).records();
+
+        assertEquals(new FastaIndex.Entry(0, "registro1", 0, 6, 4, 5), records.get(0));
+        assertEquals(new FastaIndex.Entry(1, "registro2", 10, 2, 2, 3), records.get(1));
+        assertRegionsMatchReader(path);
+    }
+
+    @Test
+    void longRecordSpanningSeveralChunks() throws IOException {
+        StringBuilder text = new StringBuilder(">largo\n");
+        String bases = "ACGTTGCAAC";
+        for (int line = 0; line < 20_000; line++) {
+            text.append(bases, 0, 10).append(bases, 0, 10).append('\n');
+        }
+        String path = write("largo.fasta", text.append(">fin\nA\n").toString());
+        FastaIndex index = FastaIndex.of(path);
+
+        assertEquals(new FastaIndex.Entry(0, "largo", 7, 400_000, 20, 21), index.records().get(0));
+        byte[] expected = firstRecord(path);
+        assertArrayEquals(slice(expected, 131_070, 131_090), index.read(0, 131_070, 131_090));
+        assertArrayEquals(slice(expected, 399_990, 400_000), index.read(0, 399_990, 400_000));
+    }
+
+    @Test
+    void regionOutsideRecordIsRejected() throws IOException {
+        String path = write("fuera.fasta", ">chr1\nACGT\n");
+        FastaIndex index = FastaIndex.of(path);
+
+        assertThrows(IOException.class, () -> index.read(0, 2, 5));
+        assertThrows(IOException.class, () -> index.read(0, -1, 2));
+        assertEquals(0, index.read(0, 2, 2).length);
+    }
+
+    @Test
+    void changedFileRebuildsIndex() throws IOException {
+        String path = write("cambia.fasta", ">a\nACGT\n");
+        assertEquals(4, FastaIndex.of(path).records().get(0).length());
+
+        write("cambia.fasta", ">a\nACGTACGT\n>b\nCC\n");
+        List<FastaIndex.Entry> records = FastaIndex.of(path).records();
+        assertEquals(2, records.size());
+        assertEquals(8, records.get(0).length());
+    }
+
+    @Test
+    void readerNamesAndUppercasesRecords() throws IOException {
+        String path = write("lector.fasta", ">chr1 Homo sapiens\nacgt\nNN>A\n>chr2\nTT\n");
+        try (FastaReader reader = new FastaReader(path)) {
+            FastaRecord first = reader.next();
+            assertEquals(0, first.index());
+            assertEquals("chr1", first.name());
+            assertEquals("ACGTNN>A", new String(first.sequence(), StandardCharsets.US_ASCII));
+
+            FastaRecord second = reader.next();
+            assertEquals(1, second.index());
+            assertEquals("chr2", second.name());
+            assertEquals("TT", new String(second.sequence(), StandardCharsets.US_ASCII));
+
+            assertNull(reader.next());
+        }
+    }
+
+    /* Comparar read() con la secuencia de FastaReader para todas las regiones de cada registro. */
+    private static void assertRegionsMatchReader(String path) throws IOException {
+        List<byte[]> sequences = new ArrayList<>();
+        try (FastaReader reader = new FastaReader(path)) {
+            FastaRecord record;
+            while ((record = reader.next()) != null) sequences.add(record.sequence());
+        }
+        FastaIndex index = FastaIndex.of(path);
+        assertEquals(sequences.size(), index.records().size());
+        for (int r = 0; r < sequences.size(); r++) {
+            byte[] sequence = sequences.get(r);
+            assertEquals(sequence.length, index.records().get(r).length());
+            for (int from = 0; from <= sequence.length; from++) {
+                for (int to = from; to <= sequence.length; to++) {
+                    assertArrayEquals(slice(sequence, from, to), index.read(r, from, to),
+                            "registro " + r + " [" + from + ", " + to + ")");
+                }
+            }
+        }
+    }
+
+    private static byte[] firstRecord(String path) throws IOException {
+        try (FastaReader reader = new FastaReader(path)) {
+            return reader.next().sequence();
+        }
+    }
+
+    private static byte[] slice(byte[] bytes, int from, int to) {
+        byte[] copy = new byte[to - from];
+        System.arraycopy(bytes, from, copy, 0, copy.length);
+        return copy;
+    }
+
+    private String write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+        return file.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.genomics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *  // Objetivo //
+ *     Verificar que los percentiles estimados queden dentro del error de las cubetas (~12%)
+ *     y nunca superen la latencia máxima observada.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("vacio");
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getP50Micros());
+        assertEquals(0, histogram.getP99Micros());
+        assertEquals(0.0, histogram.getMeanMicros());
+    }
+
+    @Test
+    void percentilesOfUniformSamples() {
+        LatencyHistogram histogram = new LatencyHistogram("uniforme");
+        for (int micros = 1; micros <= 1_000; micros++) {
+            histogram.record(micros * 1_000L);
+        }
+
+        assertEquals(1_000, histogram.getCount());
+        assertEquals(500.5, histogram.getMeanMicros(), 1e-9);
+        assertEquals(1_000, histogram.getMaxMicros());
+        assertWithinBucket(500, histogram.getP50Micros());
+        assertWithinBucket(900, histogram.getP90Micros());
+        assertWithinBucket(990, histogram.getP99Micros());
+        assertEquals(1_000, histogram.percentileMicros(100));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram("pequenos");
+        for (int micros = 0; micros < 8; micros++) {
+            histogram.record(micros * 1_000L);
+        }
+
+        assertEquals(3, histogram.getP50Micros());
+        assertEquals(7, histogram.getP99Micros());
+    }
+
+    @Test
+    void percentileIsCappedByMax() {
+        LatencyHistogram histogram = new LatencyHistogram("unico");
+        histogram.record(1_234_567);
+
+        assertEquals(1_234, histogram.getMaxMicros());
+        assertEquals(1_234, histogram.getP50Micros());
+        assertEquals(1_234, histogram.getP99Micros());
+    }
+
+    @Test
+    void negativeDurationsCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("negativo");
+        histogram.record(-5_000);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getP50Micros());
+        assertEquals(0, histogram.getMaxMicros());
+    }
+
+    @Test
+    void hugeDurationsStayInLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram("enorme");
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(1, histogram.getCount());
+        assertTrue(histogram.getP99Micros() > 0);
+        assertTrue(histogram.getP99Micros() <= histogram.getMaxMicros());
+    }
+
+    /* El percentil no es menor que el valor exacto y lo supera en a lo sumo 1/8 (una subcubeta). */
+    private static void assertWithinBucket(long exact, long estimate) {
+        assertTrue(estimate >= exact && estimate <= exact + exact / 8,
+                "estimado " + estimate + " fuera de [" + exact + ", " + (exact + exact / 8) + "]");
+    }
+}
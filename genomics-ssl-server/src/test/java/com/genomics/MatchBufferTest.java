@@ -0,0 +1,125 @@
+package com.genomics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ *  // Objetivo //
+ *     Verificar el formato de las posiciones empaquetadas y que el límite 'cap' conserve
+ *     siempre las posiciones menores, sin importar el orden en que se agregan.
+ */
+class MatchBufferTest {
+
+    @Test
+    void packRoundTrip() {
+        int[][] cases = {{0, 0}, {1, 7}, {22, 123_456_789}, {Integer.MAX_VALUE, Integer.MAX_VALUE}};
+        for (int[] c : cases) {
+            for (boolean reverse : new boolean[]{false, true}) {
+                long position = MatchBuffer.pack(c[0], c[1], reverse);
+                assertEquals(c[0], MatchBuffer.record(position));
+                assertEquals(c[1], MatchBuffer.offset(position));
+                assertEquals(reverse, MatchBuffer.reverse(position));
+            }
+        }
+    }
+
+    @Test
+    void packedOrderIsRecordOffsetStrand() {
+        assertTrue(MatchBuffer.pack(0, Integer.MAX_VALUE, true) < MatchBuffer.pack(1, 0, false));
+        assertTrue(MatchBuffer.pack(3, 10, true) < MatchBuffer.pack(3, 11, false));
+        assertTrue(MatchBuffer.pack(3, 10, false) < MatchBuffer.pack(3, 10, true));
+    }
+
+    @Test
+    void keepsAllPositionsUnderCap() {
+        MatchBuffer buffer = new MatchBuffer(10);
+        buffer.add(1, 5, true);
+        buffer.add(0, 9, false);
+        buffer.add(1, 5, false);
+
+        assertEquals(3, buffer.count());
+        assertEquals(3, buffer.size());
+        assertFalse(buffer.truncated());
+        assertArrayEquals(new long[]{
+                MatchBuffer.pack(0, 9, false), MatchBuffer.pack(1, 5, false), MatchBuffer.pack(1, 5, true)
+        }, buffer.sorted());
+    }
+
+    @Test
+    void capKeepsSmallestPositionsInAnyOrder() {
+        Random random = new Random(42);
+        for (int cap : new int[]{1, 3, 8, 50}) {
+            List<Long> all = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                all.add(MatchBuffer.pack(random.nextInt(4), random.nextInt(100_000), random.nextBoolean()));
+            }
+            // Primero la hebra complementaria y en orden inverso, como el peor caso de la búsqueda
+            List<Long> order = new ArrayList<>(all);
+            order.sort(Collections.reverseOrder());
+            MatchBuffer buffer = new MatchBuffer(cap);
+            for (long position : order) {
+                buffer.add(MatchBuffer.record(position), MatchBuffer.offset(position), MatchBuffer.reverse(position));
+            }
+
+            long[] expected = all.stream().mapToLong(Long::longValue).sorted().limit(cap).toArray();
+            assertEquals(all.size(), buffer.count());
+            assertEquals(cap, buffer.size());
+            assertTrue(buffer.truncated());
+            assertArrayEquals(expected, buffer.sorted());
+        }
+    }
+
+    @Test
+    void zeroCapOnlyCounts() {
+        MatchBuffer buffer = new MatchBuffer(0);
+        buffer.add(0, 1, false);
+        buffer.add(0, 2, false);
+
+        assertEquals(2, buffer.count());
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.truncated());
+        assertEquals(0, buffer.sorted().length);
+    }
+
+    @Test
+    void addAllMergesCountsAndRespectsCap() {
+        MatchBuffer first = new MatchBuffer(3);
+        first.add(0, 40, false);
+        first.add(0, 10, false);
+        MatchBuffer second = new MatchBuffer(3);
+        second.add(0, 30, false);
+        second.add(0, 20, true);
+        second.addCount(5);
+
+        first.addAll(second);
+
+        assertEquals(9, first.count());
+        assertTrue(first.truncated());
+        assertArrayEquals(new long[]{
+                MatchBuffer.pack(0, 10, false), MatchBuffer.pack(0, 20, true), MatchBuffer.pack(0, 30, false)
+        }, first.sorted());
+    }
+
+    @Test
+    void sortedDoesNotChangeLaterAdds() {
+        MatchBuffer buffer = new MatchBuffer(2);
+        buffer.add(0, 5, false);
+        buffer.add(0, 3, false);
+        buffer.add(0, 4, false);
+        long[] before = buffer.sorted();
+        buffer.add(0, 1, false);
+
+        assertArrayEquals(new long[]{MatchBuffer.pack(0, 3, false), MatchBuffer.pack(0, 4, false)}, before);
+        assertArrayEquals(new long[]{MatchBuffer.pack(0, 1, false), MatchBuffer.pack(0, 3, false)}, buffer.sorted());
+        assertEquals(4, buffer.count());
+    }
+}